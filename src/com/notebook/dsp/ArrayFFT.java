@@ -0,0 +1,682 @@
+package com.notebook.dsp;
+
+import java.util.Arrays;
+
+/**
+ * An ArrayFFT object calculates the FFT of complex numbers stored as two flat
+ * arrays, one holding the real parts and one holding the imaginary parts.
+ * <p>
+ * Keeping the values in primitive arrays instead of Complex objects keeps the
+ * whole working set contiguous in memory and means nothing is instantiated on
+ * the heap while transforming. BufferedFFT uses this to do the actual work and
+ * only adapts its Complex[] and byte[] inputs and outputs.
+ */
+public class ArrayFFT {
+
+    /**
+     * Maximum size of the input
+     */
+    private final int bufferSize;
+
+    /**
+     * Plan of the previous transform, kept so transforming the same size
+     * again doesn't need to go through the shared cache.
+     */
+    private FFTPlan plan;
+
+    /**
+     * Plan of the full size of the previous real transform, used for the
+     * twiddles that split the half size result into the real spectrum.
+     */
+    private FFTPlan realPlan;
+
+    /**
+     * Work space for the sizes that aren't powers of two, created the first
+     * time one is transformed and reused after that.
+     */
+    private double[] workRe;
+    private double[] workIm;
+
+    /**
+     * Power of two transforms work in place on the arrays they are given, so
+     * no buffers are created for them; N only bounds the size of the input.
+     *
+     * @param N Maximum size of expected input
+     */
+    public ArrayFFT(int N) {
+        bufferSize = N;
+    }
+
+    public int getBufferSize() { return bufferSize; }
+
+    /**
+     * Calculates the FFT of the first n values of re and im and stores the
+     * result back into them.
+     * <p>
+     * Powers of two are put in bit-reversed order and then combined layer by
+     * layer with in-place butterflies. Sizes with only factors of 2, 3 and 5
+     * are done with mixed radix butterflies, and any other size with
+     * Bluestein's algorithm as a power of two convolution. Nothing is
+     * instantiated on the heap except the work space the first time a size
+     * that isn't a power of two is transformed.
+     *
+     * @param re Real parts of the input, replaced by the real parts of the
+     *           result
+     * @param im Imaginary parts of the input, replaced by the imaginary parts
+     *           of the result
+     * @param n  Number of elements to perform the FFT on
+     * @throws Exception If n is greater than the bufferSize of this object
+     */
+    public void transform(double[] re, double[] im, int n) throws Exception {
+        if (n > bufferSize) throw new Exception("Incorrect size");
+        if (n == 0) return;
+        if (plan == null || plan.getSize() != n) plan = FFTPlan.get(n);
+
+        switch (plan.getAlgorithm()) {
+            case RADIX_2:
+                radix2(plan, re, im);
+                break;
+            case MIXED_RADIX:
+                ensureWorkSize(n);
+                System.arraycopy(re, 0, workRe, 0, n);
+                System.arraycopy(im, 0, workIm, 0, n);
+                mixedRadix(plan, re, im, 0, workRe, workIm, 0, 1, 0);
+                break;
+            case BLUESTEIN:
+                ensureWorkSize(plan.convolutionPlan.getSize());
+                bluestein(plan, re, im);
+                break;
+        }
+    }
+
+    /**
+     * Calculates the inverse FFT of the first n values of re and im and stores
+     * the result back into them. The result is scaled by 1/n so that
+     * transforming and then inverse transforming returns the original values.
+     *
+     * @param re Real parts of the input, replaced by the real parts of the
+     *           result
+     * @param im Imaginary parts of the input, replaced by the imaginary parts
+     *           of the result
+     * @param n  Number of elements to perform the inverse FFT on
+     * @throws Exception If n is greater than the bufferSize of this object
+     */
+    public void inverseTransform(double[] re, double[] im, int n)
+            throws Exception {
+        if (n > bufferSize) throw new Exception("Incorrect size");
+        if (n == 0) return;
+
+        // the inverse is the conjugate of the transform of the conjugate
+        for (int i = 0; i < n; ++i) {
+            im[i] = -im[i];
+        }
+        transform(re, im, n);
+        final double scale = 1.0 / n;
+        for (int i = 0; i < n; ++i) {
+            re[i] *= scale;
+            im[i] *= -scale;
+        }
+    }
+
+    private void ensureWorkSize(int n) {
+        if (workRe == null || workRe.length < n) {
+            workRe = new double[n];
+            workIm = new double[n];
+        }
+    }
+
+    /**
+     * Calculates the FFT of n real values.
+     * <p>
+     * Since the spectrum of a real input is conjugate symmetric only the
+     * first n/2+1 bins are calculated, using an FFT of half the size.
+     *
+     * @param input  Array of at least size offset+n to perform the FFT on
+     * @param offset Place in input to start reading values from
+     * @param n      Number of real values to perform the FFT on
+     * @param outRe  Array of at least size n/2+1 for the real parts of the
+     *               result
+     * @param outIm  Array of at least size n/2+1 for the imaginary parts of
+     *               the result
+     * @throws Exception If n is greater than the bufferSize of this object or
+     *         odd and not 1
+     */
+    public void transformReal(double[] input, int offset, int n,
+                              double[] outRe, double[] outIm)
+            throws Exception {
+        if (n > 1 && (n & 1) != 0) throw new Exception("Size must be even");
+        for (int k = 0; k < n / 2; ++k) {
+            outRe[k] = input[offset + 2 * k];
+            outIm[k] = input[offset + 2 * k + 1];
+        }
+        if (n == 1) {
+            outRe[0] = input[offset];
+            outIm[0] = 0;
+        }
+        transformPackedReal(outRe, outIm, n);
+    }
+
+    /**
+     * Calculates the FFT of n real values that have already been packed as
+     * n/2 complex numbers, the even values as the real parts and the odd
+     * values as the imaginary parts.
+     * <p>
+     * This is the step after copying in transformReal, useful for callers who
+     * can pack their samples while copying them from somewhere else.
+     *
+     * @param re Array of at least size n/2+1 with the even values in the first
+     *           n/2 elements, replaced by the real parts of the first n/2+1
+     *           bins
+     * @param im Array of at least size n/2+1 with the odd values in the first
+     *           n/2 elements, replaced by the imaginary parts of the first
+     *           n/2+1 bins
+     * @param n  Number of real values to perform the FFT on
+     * @throws Exception If n is greater than the bufferSize of this object or
+     *         odd and not 1
+     */
+    public void transformPackedReal(double[] re, double[] im, int n)
+            throws Exception {
+        if (n > bufferSize) throw new Exception("Incorrect size");
+        if (n < 2) return;
+        if ((n & 1) != 0) throw new Exception("Size must be even");
+        if (realPlan == null || realPlan.getSize() != n) {
+            realPlan = FFTPlan.get(n);
+        }
+
+        final int m = n / 2;
+        transform(re, im, m);
+
+        final double[] cos = realPlan.cos;
+        final double[] sin = realPlan.sin;
+        final int w0 = realPlan.twiddleOffset;
+
+        double z0r = re[0];
+        double z0i = im[0];
+        re[0] = z0r + z0i;
+        im[0] = 0;
+        re[m] = z0r - z0i;
+        im[m] = 0;
+
+        // bins k and m-k are both made from half size bins k and m-k
+        for (int k = 1; k <= m / 2; ++k) {
+            int j = m - k;
+            double ar = re[k], ai = im[k];
+            double br = re[j], bi = im[j];
+
+            // transform of the evens, (a + conj b)/2
+            double er = 0.5 * (ar + br);
+            double ei = 0.5 * (ai - bi);
+            // transform of the odds, (a - conj b)/2i
+            double or = 0.5 * (ai + bi);
+            double oi = -0.5 * (ar - br);
+
+            double wr = cos[w0 + k];
+            double wi = sin[w0 + k];
+            double tr = wr * or - wi * oi;
+            double ti = wr * oi + wi * or;
+
+            re[k] = er + tr;
+            im[k] = ei + ti;
+            re[j] = er - tr;
+            im[j] = ti - ei;
+        }
+    }
+
+    /**
+     * Calculates the first n/2+1 bins of the spectrum of n real values packed
+     * the same way transformPackedReal expects, straight into output as
+     * magnitudes, powers or decibels.
+     * <p>
+     * The power of every bin is calculated in the loop that splits the half
+     * size transform into the real spectrum, where the bin is made, so the
+     * complex bins are never stored; magnitudes and decibels are then
+     * converted from the powers while they are still in cache.
+     *
+     * @param re     Array of at least size n/2 with the even values, used as
+     *               work space and overwritten
+     * @param im     Array of at least size n/2 with the odd values, used as
+     *               work space and overwritten
+     * @param n      Number of real values to perform the FFT on
+     * @param type   Form of the output
+     * @param output Array of at least size n/2+1 to write the bins to
+     * @throws Exception If n is greater than the bufferSize of this object or
+     *         odd and not 1
+     */
+    public void transformPackedRealSpectrum(double[] re, double[] im, int n,
+                                            SpectrumType type,
+                                            double[] output)
+            throws Exception {
+        if (n > bufferSize) throw new Exception("Incorrect size");
+        if (n == 1) {
+            output[0] = re[0] * re[0];
+            type.fromPower(output, 0, 1);
+            return;
+        }
+        if (n < 2) return;
+        if ((n & 1) != 0) throw new Exception("Size must be even");
+        if (realPlan == null || realPlan.getSize() != n) {
+            realPlan = FFTPlan.get(n);
+        }
+
+        final int m = n / 2;
+        transform(re, im, m);
+
+        final double[] cos = realPlan.cos;
+        final double[] sin = realPlan.sin;
+        final int w0 = realPlan.twiddleOffset;
+
+        double dc = re[0] + im[0];
+        double nyquist = re[0] - im[0];
+        output[0] = dc * dc;
+        output[m] = nyquist * nyquist;
+
+        // same split as transformPackedReal, keeping only the powers
+        for (int k = 1; k <= m / 2; ++k) {
+            int j = m - k;
+            double ar = re[k], ai = im[k];
+            double br = re[j], bi = im[j];
+
+            double er = 0.5 * (ar + br);
+            double ei = 0.5 * (ai - bi);
+            double or = 0.5 * (ai + bi);
+            double oi = -0.5 * (ar - br);
+
+            double wr = cos[w0 + k];
+            double wi = sin[w0 + k];
+            double tr = wr * or - wi * oi;
+            double ti = wr * oi + wi * or;
+
+            double kr = er + tr;
+            double ki = ei + ti;
+            double jr = er - tr;
+            double ji = ti - ei;
+            output[k] = kr * kr + ki * ki;
+            output[j] = jr * jr + ji * ji;
+        }
+        type.fromPower(output, 0, m + 1);
+    }
+
+    /**
+     * Calculates the inverse FFT of the first n/2+1 bins of the spectrum of n
+     * real values, the reverse of transformReal. The result is scaled by 1/n
+     * so that the original values are returned.
+     *
+     * @param re     Real parts of the first n/2+1 bins, used as work space
+     *               and overwritten
+     * @param im     Imaginary parts of the first n/2+1 bins, used as work
+     *               space and overwritten
+     * @param n      Number of real values to return
+     * @param output Array of at least size offset+n to copy the results to
+     * @param offset Place in output to start copying values to
+     * @throws Exception If n is greater than the bufferSize of this object or
+     *         odd and not 1
+     */
+    public void inverseTransformReal(double[] re, double[] im, int n,
+                                     double[] output, int offset)
+            throws Exception {
+        if (n == 1) {
+            output[offset] = re[0];
+            return;
+        }
+        inverseTransformPackedReal(re, im, n);
+        for (int k = 0; k < n / 2; ++k) {
+            output[offset + 2 * k] = re[k];
+            output[offset + 2 * k + 1] = im[k];
+        }
+    }
+
+    /**
+     * Calculates the inverse FFT of the first n/2+1 bins of the spectrum of n
+     * real values, leaving the result packed the same way transformPackedReal
+     * expects its input.
+     *
+     * @param re Real parts of the first n/2+1 bins, replaced by the even
+     *           values in the first n/2 elements
+     * @param im Imaginary parts of the first n/2+1 bins, replaced by the odd
+     *           values in the first n/2 elements
+     * @param n  Number of real values the spectrum is of
+     * @throws Exception If n is greater than the bufferSize of this object or
+     *         odd and not 1
+     */
+    public void inverseTransformPackedReal(double[] re, double[] im, int n)
+            throws Exception {
+        if (n > bufferSize) throw new Exception("Incorrect size");
+        if (n < 2) return;
+        if ((n & 1) != 0) throw new Exception("Size must be even");
+        if (realPlan == null || realPlan.getSize() != n) {
+            realPlan = FFTPlan.get(n);
+        }
+
+        final int m = n / 2;
+        final double[] cos = realPlan.cos;
+        final double[] sin = realPlan.sin;
+        final int w0 = realPlan.twiddleOffset;
+
+        // packed as evens + i*odds and conjugated for the inverse below
+        double x0 = re[0];
+        double xm = re[m];
+        re[0] = 0.5 * (x0 + xm);
+        im[0] = -0.5 * (x0 - xm);
+
+        for (int k = 1; k <= m / 2; ++k) {
+            int j = m - k;
+            double ar = re[k], ai = im[k];
+            double br = re[j], bi = im[j];
+
+            // transform of the evens, (a + conj b)/2
+            double er = 0.5 * (ar + br);
+            double ei = 0.5 * (ai - bi);
+            // transform of the odds, (a - conj b)*conj(w)/2
+            double dr = ar - br;
+            double di = ai + bi;
+            double wr = cos[w0 + k];
+            double wi = sin[w0 + k];
+            double or = 0.5 * (dr * wr + di * wi);
+            double oi = 0.5 * (di * wr - dr * wi);
+
+            re[k] = er - oi;
+            im[k] = -(ei + or);
+            re[j] = er + oi;
+            im[j] = -(or - ei);
+        }
+
+        // inverse transform as the conjugate of the transform of the conjugate
+        transform(re, im, m);
+        final double scale = 1.0 / m;
+        for (int k = 0; k < m; ++k) {
+            re[k] *= scale;
+            im[k] *= -scale;
+        }
+    }
+
+    /**
+     * Calculates the FFT of a power of two size in place.
+     */
+    static void radix2(FFTPlan plan, double[] re, double[] im) {
+        final int n = plan.getSize();
+        bitReverse(plan, re, im, 0, n);
+        for (int size = 2; size <= n; size <<= 1) {
+            layer(plan, re, im, size, 0, n / 2);
+        }
+    }
+
+    /**
+     * Swaps every element with index in [from, to) with the element at its
+     * bit-reversed index. Each pair is only swapped by the range holding the
+     * lower index, so disjoint ranges may be done at the same time.
+     */
+    static void bitReverse(FFTPlan plan, double[] re, double[] im,
+                           int from, int to) {
+        final int[] rev = plan.bitReversed;
+        for (int i = from; i < to; ++i) {
+            int j = rev[i];
+            if (i < j) {
+                double t = re[i];
+                re[i] = re[j];
+                re[j] = t;
+                t = im[i];
+                im[i] = im[j];
+                im[j] = t;
+            }
+        }
+    }
+
+    /**
+     * Does the butterflies with index in [from, to) of the layer combining
+     * bit-reversed blocks of size/2 values into blocks of size values. A layer
+     * has n/2 butterflies, butterfly k of block b combining values
+     * b*size + k and b*size + k + size/2, so disjoint ranges of the same layer
+     * may be done at the same time.
+     */
+    static void layer(FFTPlan plan, double[] re, double[] im,
+                      int size, int from, int to) {
+        final int half = size >> 1;
+        if (half == 1) {
+            // every twiddle is 1
+            for (int b = from; b < to; ++b) {
+                int e = b << 1;
+                double tr = re[e + 1];
+                double ti = im[e + 1];
+                re[e + 1] = re[e] - tr;
+                im[e + 1] = im[e] - ti;
+                re[e] += tr;
+                im[e] += ti;
+            }
+            return;
+        }
+        final double[] cos = plan.stageCos;
+        final double[] sin = plan.stageSin;
+
+        int b = from;
+        while (b < to) {
+            final int k0 = b & (half - 1);
+            final int start = (b - k0) << 1;
+            final int kEnd = Math.min(half, k0 + (to - b));
+            ComplexArrays.butterflies(re, im, start + k0, start + k0 + half,
+                    cos, sin, half + k0, kEnd - k0);
+            b += kEnd - k0;
+        }
+    }
+
+    /**
+     * Calculates the FFT of every fstride-th input value starting at inOff
+     * into the consecutive outputs starting at outOff, splitting it into the
+     * radix of the given level and the transforms of the size left after it.
+     */
+    private static void mixedRadix(FFTPlan plan,
+                                   double[] outRe, double[] outIm, int outOff,
+                                   double[] inRe, double[] inIm, int inOff,
+                                   int fstride, int level) {
+        final int p = plan.factors[2 * level];
+        final int m = plan.factors[2 * level + 1];
+
+        if (m == 1) {
+            for (int q = 0; q < p; ++q) {
+                outRe[outOff + q] = inRe[inOff + q * fstride];
+                outIm[outOff + q] = inIm[inOff + q * fstride];
+            }
+        } else {
+            for (int q = 0; q < p; ++q) {
+                mixedRadix(plan, outRe, outIm, outOff + q * m,
+                        inRe, inIm, inOff + q * fstride,
+                        fstride * p, level + 1);
+            }
+        }
+
+        switch (p) {
+            case 2:
+                butterfly2(plan, outRe, outIm, outOff, fstride, m);
+                break;
+            case 3:
+                butterfly3(plan, outRe, outIm, outOff, fstride, m);
+                break;
+            case 4:
+                butterfly4(plan, outRe, outIm, outOff, fstride, m);
+                break;
+            case 5:
+                butterfly5(plan, outRe, outIm, outOff, fstride, m);
+                break;
+        }
+    }
+
+    private static void butterfly2(FFTPlan plan, double[] re, double[] im,
+                                   int off, int fstride, int m) {
+        final double[] cos = plan.cos;
+        final double[] sin = plan.sin;
+        for (int k = 0; k < m; ++k) {
+            int a = off + k;
+            int b = a + m;
+            double wr = cos[k * fstride];
+            double wi = sin[k * fstride];
+            double tr = wr * re[b] - wi * im[b];
+            double ti = wr * im[b] + wi * re[b];
+            re[b] = re[a] - tr;
+            im[b] = im[a] - ti;
+            re[a] += tr;
+            im[a] += ti;
+        }
+    }
+
+    private static void butterfly3(FFTPlan plan, double[] re, double[] im,
+                                   int off, int fstride, int m) {
+        final double[] cos = plan.cos;
+        final double[] sin = plan.sin;
+        // imaginary part of e^(-2*pi*i/3)
+        final double epi3 = sin[fstride * m];
+        for (int k = 0; k < m; ++k) {
+            int a = off + k;
+            int b = a + m;
+            int c = b + m;
+            double w1r = cos[k * fstride], w1i = sin[k * fstride];
+            double w2r = cos[2 * k * fstride], w2i = sin[2 * k * fstride];
+
+            double s1r = re[b] * w1r - im[b] * w1i;
+            double s1i = re[b] * w1i + im[b] * w1r;
+            double s2r = re[c] * w2r - im[c] * w2i;
+            double s2i = re[c] * w2i + im[c] * w2r;
+
+            double s3r = s1r + s2r, s3i = s1i + s2i;
+            double s0r = (s1r - s2r) * epi3, s0i = (s1i - s2i) * epi3;
+
+            double mr = re[a] - 0.5 * s3r;
+            double mi = im[a] - 0.5 * s3i;
+            re[a] += s3r;
+            im[a] += s3i;
+            re[c] = mr + s0i;
+            im[c] = mi - s0r;
+            re[b] = mr - s0i;
+            im[b] = mi + s0r;
+        }
+    }
+
+    private static void butterfly4(FFTPlan plan, double[] re, double[] im,
+                                   int off, int fstride, int m) {
+        final double[] cos = plan.cos;
+        final double[] sin = plan.sin;
+        for (int k = 0; k < m; ++k) {
+            int a = off + k;
+            int b = a + m;
+            int c = b + m;
+            int d = c + m;
+            double w1r = cos[k * fstride], w1i = sin[k * fstride];
+            double w2r = cos[2 * k * fstride], w2i = sin[2 * k * fstride];
+            double w3r = cos[3 * k * fstride], w3i = sin[3 * k * fstride];
+
+            double s0r = re[b] * w1r - im[b] * w1i;
+            double s0i = re[b] * w1i + im[b] * w1r;
+            double s1r = re[c] * w2r - im[c] * w2i;
+            double s1i = re[c] * w2i + im[c] * w2r;
+            double s2r = re[d] * w3r - im[d] * w3i;
+            double s2i = re[d] * w3i + im[d] * w3r;
+
+            double s5r = re[a] - s1r, s5i = im[a] - s1i;
+            double s6r = re[a] + s1r, s6i = im[a] + s1i;
+            double s3r = s0r + s2r, s3i = s0i + s2i;
+            double s4r = s0r - s2r, s4i = s0i - s2i;
+
+            re[c] = s6r - s3r;
+            im[c] = s6i - s3i;
+            re[a] = s6r + s3r;
+            im[a] = s6i + s3i;
+            re[b] = s5r + s4i;
+            im[b] = s5i - s4r;
+            re[d] = s5r - s4i;
+            im[d] = s5i + s4r;
+        }
+    }
+
+    private static void butterfly5(FFTPlan plan, double[] re, double[] im,
+                                   int off, int fstride, int m) {
+        final double[] cos = plan.cos;
+        final double[] sin = plan.sin;
+        // e^(-2*pi*i/5) and e^(-4*pi*i/5)
+        final double yar = cos[fstride * m], yai = sin[fstride * m];
+        final double ybr = cos[2 * fstride * m], ybi = sin[2 * fstride * m];
+        for (int k = 0; k < m; ++k) {
+            int i0 = off + k;
+            int i1 = i0 + m;
+            int i2 = i1 + m;
+            int i3 = i2 + m;
+            int i4 = i3 + m;
+            double w1r = cos[k * fstride], w1i = sin[k * fstride];
+            double w2r = cos[2 * k * fstride], w2i = sin[2 * k * fstride];
+            double w3r = cos[3 * k * fstride], w3i = sin[3 * k * fstride];
+            double w4r = cos[4 * k * fstride], w4i = sin[4 * k * fstride];
+
+            double s0r = re[i0], s0i = im[i0];
+            double s1r = re[i1] * w1r - im[i1] * w1i;
+            double s1i = re[i1] * w1i + im[i1] * w1r;
+            double s2r = re[i2] * w2r - im[i2] * w2i;
+            double s2i = re[i2] * w2i + im[i2] * w2r;
+            double s3r = re[i3] * w3r - im[i3] * w3i;
+            double s3i = re[i3] * w3i + im[i3] * w3r;
+            double s4r = re[i4] * w4r - im[i4] * w4i;
+            double s4i = re[i4] * w4i + im[i4] * w4r;
+
+            double s7r = s1r + s4r, s7i = s1i + s4i;
+            double s10r = s1r - s4r, s10i = s1i - s4i;
+            double s8r = s2r + s3r, s8i = s2i + s3i;
+            double s9r = s2r - s3r, s9i = s2i - s3i;
+
+            re[i0] = s0r + s7r + s8r;
+            im[i0] = s0i + s7i + s8i;
+
+            double s5r = s0r + s7r * yar + s8r * ybr;
+            double s5i = s0i + s7i * yar + s8i * ybr;
+            double s6r = s10i * yai + s9i * ybi;
+            double s6i = -(s10r * yai + s9r * ybi);
+            re[i1] = s5r - s6r;
+            im[i1] = s5i - s6i;
+            re[i4] = s5r + s6r;
+            im[i4] = s5i + s6i;
+
+            double s11r = s0r + s7r * ybr + s8r * yar;
+            double s11i = s0i + s7i * ybr + s8i * yar;
+            double s12r = -s10i * ybi + s9i * yai;
+            double s12i = s10r * ybi - s9r * yai;
+            re[i2] = s11r + s12r;
+            im[i2] = s11i + s12i;
+            re[i3] = s11r - s12r;
+            im[i3] = s11i - s12i;
+        }
+    }
+
+    /**
+     * Calculates the FFT of a size with large prime factors in place as the
+     * convolution of the chirped input with the chirp filter, done with power
+     * of two transforms in the work space.
+     */
+    private void bluestein(FFTPlan plan, double[] re, double[] im) {
+        final int n = plan.getSize();
+        final FFTPlan conv = plan.convolutionPlan;
+        final int M = conv.getSize();
+        final double[] cr = plan.chirpRe;
+        final double[] ci = plan.chirpIm;
+
+        ComplexArrays.multiply(re, im, cr, ci, workRe, workIm, n);
+        Arrays.fill(workRe, n, M, 0);
+        Arrays.fill(workIm, n, M, 0);
+
+        radix2(conv, workRe, workIm);
+
+        // multiply by the filter, conjugated so the next forward transform
+        // works as the inverse transform
+        final double[] fr = plan.filterRe;
+        final double[] fi = plan.filterIm;
+        for (int k = 0; k < M; ++k) {
+            double ar = workRe[k];
+            double ai = workIm[k];
+            workRe[k] = ar * fr[k] - ai * fi[k];
+            workIm[k] = -(ar * fi[k] + ai * fr[k]);
+        }
+
+        radix2(conv, workRe, workIm);
+
+        for (int k = 0; k < n; ++k) {
+            double ar = workRe[k];
+            double ai = -workIm[k];
+            re[k] = ar * cr[k] - ai * ci[k];
+            im[k] = ar * ci[k] + ai * cr[k];
+        }
+    }
+}
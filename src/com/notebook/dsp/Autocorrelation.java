@@ -0,0 +1,146 @@
+package com.notebook.dsp;
+
+import java.util.Arrays;
+
+/**
+ * Autocorrelation and YIN difference function of a frame, calculated with
+ * FFTs.
+ * <p>
+ * By the Wiener-Khinchin theorem the correlation of two signals is the
+ * inverse transform of the product of the transform of one with the
+ * conjugate transform of the other. Zero padding both to a power of two at
+ * least as long as the samples and lags involved keeps the circular
+ * correlation from wrapping, so every lag costs O(log N) instead of the O(N)
+ * of summing it directly. Nothing is instantiated on the heap after
+ * construction.
+ */
+public class Autocorrelation {
+
+    private final int maxSamples;
+    private final ArrayFFT fft;
+
+    private final double[] padded;
+    private final double[] aRe;
+    private final double[] aIm;
+    private final double[] bRe;
+    private final double[] bIm;
+
+    /**
+     * @param maxSamples Maximum number of samples of the frames
+     */
+    public Autocorrelation(int maxSamples) {
+        if (maxSamples < 1) {
+            throw new IllegalArgumentException("Incorrect size");
+        }
+        this.maxSamples = maxSamples;
+        // the autocorrelation of maxSamples pads to 2*maxSamples-1
+        int M = fftSize(2 * maxSamples - 1);
+        fft = new ArrayFFT(M);
+        padded = new double[M];
+        aRe = new double[M / 2 + 1];
+        aIm = new double[M / 2 + 1];
+        bRe = new double[M / 2 + 1];
+        bIm = new double[M / 2 + 1];
+    }
+
+    public int getMaxSamples() { return maxSamples; }
+
+    /**
+     * Calculates the autocorrelation r(tau) of n samples, the sum of
+     * x[j]*x[j+tau] over every j with both in the frame, for every lag
+     * tau in [0, lags).
+     *
+     * @param input  Array of at least size offset+n of samples
+     * @param offset Place in input the frame starts at
+     * @param n      Number of samples in the frame
+     * @param lags   Number of lags to calculate, at most n
+     * @param output Array of at least size lags for r(0) to r(lags-1)
+     * @throws Exception If n is greater than the maxSamples of this object or
+     *         lags greater than n
+     */
+    public void calculate(double[] input, int offset, int n, int lags,
+                          double[] output) throws Exception {
+        if (n > maxSamples || lags > n) throw new Exception("Incorrect size");
+        // x[j+tau] is zero from n on, so padding to n+lags-1 never wraps
+        correlate(input, offset, n, n, n + lags - 1, lags, output);
+    }
+
+    /**
+     * Calculates the difference function of YIN,
+     * d(tau) = sum over j in [0, window) of (x[j] - x[j+tau])^2, for every
+     * lag tau in [0, lags), which needs window+lags-1 samples.
+     * <p>
+     * Expanding the square gives the energy of the first window samples plus
+     * the energy of the window samples from tau minus twice their
+     * correlation, the energies being running sums and the correlation
+     * coming from the FFT.
+     *
+     * @param input  Array of at least size offset+window+lags-1 of samples
+     * @param offset Place in input the frame starts at
+     * @param window Number of samples each lag compares
+     * @param lags   Number of lags to calculate
+     * @param output Array of at least size lags for d(0) to d(lags-1)
+     * @throws Exception If window+lags-1 is greater than the maxSamples of
+     *         this object
+     */
+    public void difference(double[] input, int offset, int window, int lags,
+                           double[] output) throws Exception {
+        final int length = window + lags - 1;
+        if (window < 1 || lags < 1 || length > maxSamples) {
+            throw new Exception("Incorrect size");
+        }
+        // x[j+tau] only reaches index length-1, so length never wraps
+        correlate(input, offset, window, length, length, lags, output);
+
+        double energy = 0;
+        for (int j = 0; j < window; ++j) {
+            energy += input[offset + j] * input[offset + j];
+        }
+        double shifted = energy;
+        for (int tau = 0; tau < lags; ++tau) {
+            if (tau > 0) {
+                double leaving = input[offset + tau - 1];
+                double entering = input[offset + tau + window - 1];
+                shifted += entering * entering - leaving * leaving;
+            }
+            // rounding can take a near zero difference slightly negative
+            output[tau] = Math.max(0, energy + shifted - 2 * output[tau]);
+        }
+    }
+
+    /**
+     * Writes the sum of a[j]*b[j+tau] over j in [0, window) for tau in
+     * [0, lags) to output, a being the first window samples and b the first
+     * length samples of the frame, both zero padded to at least size.
+     */
+    private void correlate(double[] input, int offset, int window,
+                           int length, int size, int lags, double[] output)
+            throws Exception {
+        final int M = fftSize(size);
+        final int bins = M / 2 + 1;
+
+        System.arraycopy(input, offset, padded, 0, length);
+        Arrays.fill(padded, length, M, 0);
+        fft.transformReal(padded, 0, M, bRe, bIm);
+
+        if (window == length) {
+            System.arraycopy(bRe, 0, aRe, 0, bins);
+            System.arraycopy(bIm, 0, aIm, 0, bins);
+        } else {
+            Arrays.fill(padded, window, length, 0);
+            fft.transformReal(padded, 0, M, aRe, aIm);
+        }
+
+        ComplexArrays.multiplyConjugate(bRe, bIm, aRe, aIm, bRe, bIm, bins);
+        fft.inverseTransformReal(bRe, bIm, M, padded, 0);
+        System.arraycopy(padded, 0, output, 0, lags);
+    }
+
+    /**
+     * Smallest even power of two at least length
+     */
+    private static int fftSize(int length) {
+        return Math.max(2,
+                Integer.highestOneBit(Math.max(1, length - 1)) << 1);
+    }
+}
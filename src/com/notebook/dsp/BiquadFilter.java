@@ -0,0 +1,224 @@
+package com.notebook.dsp;
+
+import java.util.Arrays;
+
+/**
+ * Cascade of second-order IIR sections (biquads).
+ * <p>
+ * Each section is y = (b0 + b1*z^-1 + b2*z^-2) / (1 + a1*z^-1 + a2*z^-2),
+ * run in transposed direct form II. Every sample goes through all of the
+ * sections before the next one is read, so a cascade of any length walks the
+ * data once instead of once per section. The coefficients and state are kept
+ * in primitive arrays, one value per section.
+ * <p>
+ * Like LowPassFilter.process the state is kept between calls, so consecutive
+ * blocks of a stream are filtered as if they were one. The designs are those
+ * of the RBJ audio EQ cookbook, and a cascade of several identical sections
+ * gives a steeper roll off.
+ */
+public class BiquadFilter {
+
+    /**
+     * Butterworth quality factor, the flattest pass band for one section
+     */
+    public static final double BUTTERWORTH_Q = 1 / Math.sqrt(2);
+
+    private final int sections;
+
+    private final double[] b0;
+    private final double[] b1;
+    private final double[] b2;
+    private final double[] a1;
+    private final double[] a2;
+
+    /**
+     * State of each section
+     */
+    private final double[] z1;
+    private final double[] z2;
+
+    /**
+     * @param b0 First numerator coefficient of each section
+     * @param b1 Second numerator coefficient of each section
+     * @param b2 Third numerator coefficient of each section
+     * @param a1 Second denominator coefficient of each section
+     * @param a2 Third denominator coefficient of each section, the first
+     *           being normalized to 1
+     */
+    public BiquadFilter(double[] b0, double[] b1, double[] b2,
+                        double[] a1, double[] a2) {
+        sections = b0.length;
+        if (sections < 1 || b1.length != sections || b2.length != sections
+                || a1.length != sections || a2.length != sections) {
+            throw new IllegalArgumentException("Incorrect size");
+        }
+        this.b0 = b0.clone();
+        this.b1 = b1.clone();
+        this.b2 = b2.clone();
+        this.a1 = a1.clone();
+        this.a2 = a2.clone();
+        z1 = new double[sections];
+        z2 = new double[sections];
+    }
+
+    /**
+     * Low pass filter of identical sections.
+     *
+     * @param timestep  Time between two samples
+     * @param frequency Cutoff frequency
+     * @param q         Quality factor of each section
+     * @param sections  Number of sections in the cascade
+     * @return The filter
+     */
+    public static BiquadFilter lowPass(double timestep, double frequency,
+                                       double q, int sections) {
+        double w = 2 * Math.PI * frequency * timestep;
+        double cos = Math.cos(w);
+        double alpha = Math.sin(w) / (2 * q);
+        return design(sections, (1 - cos) / 2, 1 - cos, (1 - cos) / 2,
+                1 + alpha, -2 * cos, 1 - alpha);
+    }
+
+    /**
+     * High pass filter of identical sections.
+     *
+     * @param timestep  Time between two samples
+     * @param frequency Cutoff frequency
+     * @param q         Quality factor of each section
+     * @param sections  Number of sections in the cascade
+     * @return The filter
+     */
+    public static BiquadFilter highPass(double timestep, double frequency,
+                                        double q, int sections) {
+        double w = 2 * Math.PI * frequency * timestep;
+        double cos = Math.cos(w);
+        double alpha = Math.sin(w) / (2 * q);
+        return design(sections, (1 + cos) / 2, -(1 + cos), (1 + cos) / 2,
+                1 + alpha, -2 * cos, 1 - alpha);
+    }
+
+    /**
+     * Band pass filter of identical sections, with a gain of 1 at the center
+     * frequency.
+     *
+     * @param timestep  Time between two samples
+     * @param frequency Center frequency
+     * @param q         Quality factor of each section, higher being narrower
+     * @param sections  Number of sections in the cascade
+     * @return The filter
+     */
+    public static BiquadFilter bandPass(double timestep, double frequency,
+                                        double q, int sections) {
+        double w = 2 * Math.PI * frequency * timestep;
+        double cos = Math.cos(w);
+        double alpha = Math.sin(w) / (2 * q);
+        return design(sections, alpha, 0, -alpha,
+                1 + alpha, -2 * cos, 1 - alpha);
+    }
+
+    /**
+     * Notch filter of identical sections.
+     *
+     * @param timestep  Time between two samples
+     * @param frequency Frequency to remove
+     * @param q         Quality factor of each section, higher being narrower
+     * @param sections  Number of sections in the cascade
+     * @return The filter
+     */
+    public static BiquadFilter notch(double timestep, double frequency,
+                                     double q, int sections) {
+        double w = 2 * Math.PI * frequency * timestep;
+        double cos = Math.cos(w);
+        double alpha = Math.sin(w) / (2 * q);
+        return design(sections, 1, -2 * cos, 1,
+                1 + alpha, -2 * cos, 1 - alpha);
+    }
+
+    private static BiquadFilter design(int sections,
+                                       double b0, double b1, double b2,
+                                       double a0, double a1, double a2) {
+        if (sections < 1) throw new IllegalArgumentException("Incorrect size");
+        double[] nb0 = new double[sections];
+        double[] nb1 = new double[sections];
+        double[] nb2 = new double[sections];
+        double[] na1 = new double[sections];
+        double[] na2 = new double[sections];
+        Arrays.fill(nb0, b0 / a0);
+        Arrays.fill(nb1, b1 / a0);
+        Arrays.fill(nb2, b2 / a0);
+        Arrays.fill(na1, a1 / a0);
+        Arrays.fill(na2, a2 / a0);
+        return new BiquadFilter(nb0, nb1, nb2, na1, na2);
+    }
+
+    /**
+     * Cascade running the sections of every filter, in order, in one pass.
+     *
+     * @param filters Filters to chain
+     * @return The filter, with its state cleared
+     */
+    public static BiquadFilter cascade(BiquadFilter... filters) {
+        int total = 0;
+        for (BiquadFilter filter : filters) total += filter.sections;
+        double[] nb0 = new double[total];
+        double[] nb1 = new double[total];
+        double[] nb2 = new double[total];
+        double[] na1 = new double[total];
+        double[] na2 = new double[total];
+        int s = 0;
+        for (BiquadFilter filter : filters) {
+            System.arraycopy(filter.b0, 0, nb0, s, filter.sections);
+            System.arraycopy(filter.b1, 0, nb1, s, filter.sections);
+            System.arraycopy(filter.b2, 0, nb2, s, filter.sections);
+            System.arraycopy(filter.a1, 0, na1, s, filter.sections);
+            System.arraycopy(filter.a2, 0, na2, s, filter.sections);
+            s += filter.sections;
+        }
+        return new BiquadFilter(nb0, nb1, nb2, na1, na2);
+    }
+
+    public int getSections() { return sections; }
+
+    /**
+     * Clears the state of every section, as if no samples had been filtered.
+     */
+    public void reset() {
+        Arrays.fill(z1, 0);
+        Arrays.fill(z2, 0);
+    }
+
+    /**
+     * Filters the next N samples of a stream. Input and output may be the
+     * same array, even at the same offset.
+     *
+     * @param input     Array of at least size inOffset+N
+     * @param inOffset  Place in input to start reading at
+     * @param output    Array of at least size outOffset+N
+     * @param outOffset Place in output to start writing at
+     * @param N         Number of samples to filter
+     */
+    public void process(double[] input, int inOffset,
+                        double[] output, int outOffset, int N) {
+        for (int i = 0; i < N; ++i) {
+            double x = input[inOffset + i];
+            for (int s = 0; s < sections; ++s) {
+                double y = b0[s] * x + z1[s];
+                z1[s] = b1[s] * x - a1[s] * y + z2[s];
+                z2[s] = b2[s] * x - a2[s] * y;
+                x = y;
+            }
+            output[outOffset + i] = x;
+        }
+    }
+
+    /**
+     * Filters the next N samples of a stream in place.
+     *
+     * @param vals   Array of at least size offset+N
+     * @param N      Number of samples to filter
+     * @param offset Place in vals to start filtering at
+     */
+    public void process(double[] vals, int N, int offset) {
+        process(vals, offset, vals, offset, N);
+    }
+}
@@ -1,5 +1,7 @@
 package com.notebook.dsp;
 
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
@@ -7,36 +9,43 @@ import java.util.concurrent.Future;
 /**
  * A BufferedFFT object is used to calculate the FFT of an array of complex
  * number efficiently.
- * It has several options for calling the FFT, including calling it on your own
- * BufferChunks. Other options include copying the data from an input buffer
- * (Complex[] or byte[]), copying the results to an output buffer or
+ * It has several options for calling the FFT, including calling it on flat
+ * arrays of real and imaginary parts. Other options include copying the data
+ * from an input buffer (Complex[] or byte[]), copying the results to an
+ * output buffer or
  * instantiating it on the heap, and even running the task from an
  * ExecutorService (returning a Future Complex[] pointer to the output.)
+ * <p>
+ * A Window can be set to be applied to every forward transform's input while
+ * it is copied into the buffer.
+ * <p>
+ * Real input can also be read straight out of a ByteBuffer, such as a direct
+ * buffer filled by an NIO channel, in any SampleFormat, and spectra can be
+ * written to a DoubleBuffer, which may be off the heap.
+ * <p>
+ * All of these share the same buffers, so a BufferedFFT must only run one
+ * transform at a time. Use a ConcurrentFFT to transform from several threads.
  */
 public class BufferedFFT {
 
     /**
-     * Since it is recursive and acts on the previous layer's result,
-     * BufferedFFT requires two buffers to store results in. Each buffer is
-     * used in every other layer with the layer having a single value always
-     * being the odd buffer.
-     *
-     * @return The buffer for the current layer
+     * The engine doing the actual transform on flat arrays.
      */
-    private Complex[] getBuffer() {
-        if (useOddBuffer) return oddBuffer;
-        else return evenBuffer;
-    }
-
-    private boolean useOddBuffer = true;
-    private final Complex[] oddBuffer;
-    private final Complex[] evenBuffer;
+    private final ArrayFFT engine;
 
     /**
      * Size of the initial input
      */
     private final int bufferSize;
-    private final Complex[] inputBuffer;
+    private final double[] inputRe;
+    private final double[] inputIm;
+
+    /**
+     * Window applied to the input, null for none, and its coefficients for
+     * the size of the previous transform
+     */
+    private Window window;
+    private double[] windowTable;
 
     /**
      * Constructor that initializes all the buffers to size N
@@ -45,14 +54,34 @@ public class BufferedFFT {
      */
     public BufferedFFT(int N) {
         bufferSize = N;
-        oddBuffer = new Complex[N];
-        evenBuffer = new Complex[N];
-        inputBuffer = new Complex[N];
-        for (int i = 0; i < N; ++i) {
-            oddBuffer[i] = new Complex(0, 0);
-            evenBuffer[i] = new Complex(0, 0);
-            inputBuffer[i] = new Complex(0, 0);
+        engine = new ArrayFFT(N);
+        inputRe = new double[N];
+        inputIm = new double[N];
+    }
+
+    /**
+     * Sets the window every forward transform's input is multiplied by while
+     * being copied into the buffer.
+     *
+     * @param window Window to apply, or null to use the input as is
+     */
+    public void setWindow(Window window) {
+        this.window = window;
+        windowTable = null;
+    }
+
+    public Window getWindow() { return window; }
+
+    /**
+     * @return The window coefficients for size n, or null if there is no
+     *         window
+     */
+    private double[] windowFor(int n) {
+        if (window == null) return null;
+        if (windowTable == null || windowTable.length != n) {
+            windowTable = window.coefficients(n);
         }
+        return windowTable;
     }
 
     /**
@@ -80,16 +109,11 @@ public class BufferedFFT {
             throws NullPointerException, InterruptedException {
 
         if (n > bufferSize) throw new NullPointerException("Incorrect size");
-        for (int i = 0; i < n; ++i) {
-            inputBuffer[i].set(input[i + offset]);
-        }
+        copyInput(input, n, offset);
 
         Callable<Complex[]> task = () -> {
-            BufferChunk res = fft(new BufferChunk(inputBuffer, 0, 1, n));
-
-            for (int i = 0; i < res.getCount(); ++i) {
-                output[i].set(res.get(i));
-            }
+            engine.transform(inputRe, inputIm, n);
+            copyOutput(output, n);
             return output;
         };
 
@@ -121,17 +145,10 @@ public class BufferedFFT {
             throws NullPointerException, InterruptedException {
 
         if (n > bufferSize) throw new NullPointerException("Incorrect size");
-        for (int i = 0; i < n; ++i) {
-            inputBuffer[i].set(input[i + offset], 0);
-        }
+        packInput(input, n, offset);
         Callable<Complex[]> task = () -> {
-            BufferChunk res = fft(new BufferChunk(inputBuffer, 0, 1, n));
-
-            Complex[] ret = new Complex[res.getCount()];
-            for (int i = 0; i < res.getCount(); ++i) {
-                ret[i] = new Complex(res.get(i));
-            }
-            return ret;
+            transformPacked(n, true);
+            return createOutput(n);
         };
         return executor.submit(task);
     }
@@ -161,15 +178,10 @@ public class BufferedFFT {
             throws NullPointerException, InterruptedException {
 
         if (n > bufferSize) throw new NullPointerException("Incorrect size");
-        for (int i = 0; i < n; ++i) {
-            inputBuffer[i].set(input[i + offset], 0);
-        }
+        packInput(input, n, offset);
         Callable<Complex[]> task = () -> {
-            BufferChunk res = fft(new BufferChunk(inputBuffer, 0, 1, n));
-
-            for (int i = 0; i < res.getCount(); ++i) {
-                output[i].set(res.get(i));
-            }
+            transformPacked(n, true);
+            copyOutput(output, n);
             return output;
         };
         return executor.submit(task);
@@ -192,16 +204,9 @@ public class BufferedFFT {
     public synchronized Complex[] calculateFFT(byte[] input, int n, int offset)
             throws Exception {
         if (n > bufferSize) throw new Exception("Incorrect size");
-        for (int i = 0; i < n; ++i) {
-            inputBuffer[i].set(input[i + offset], 0);
-        }
-        BufferChunk res = fft(new BufferChunk(inputBuffer, 0, 1, n));
-
-        Complex[] ret = new Complex[res.getCount()];
-        for (int i = 0; i < res.getCount(); ++i) {
-            ret[i] = new Complex(res.get(i));
-        }
-        return ret;
+        packInput(input, n, offset);
+        transformPacked(n, true);
+        return createOutput(n);
     }
 
     /**
@@ -221,17 +226,9 @@ public class BufferedFFT {
     public void calculateFFT(byte[] input, int n, int offset, Complex[] output)
             throws Exception {
         if (n > bufferSize) throw new Exception("Incorrect size");
-        for (int i = 0; i < n; ++i) {
-            inputBuffer[i].set(input[offset + i], 0);
-        }
-        BufferChunk res = fft(new BufferChunk(
-                inputBuffer,
-                0, 1, n
-        ));
-
-        for (int i = 0; i < res.getCount(); ++i) {
-            output[i].set(res.get(i));
-        }
+        packInput(input, n, offset);
+        transformPacked(n, true);
+        copyOutput(output, n);
     }
 
     /**
@@ -252,7 +249,6 @@ public class BufferedFFT {
         Complex[] output = new Complex[input.length];
 
         for (int i = 0; i < input.length; ++i) {
-            inputBuffer[i].set(input[i]);
             output[i] = new Complex(0, 0);
         }
 
@@ -277,54 +273,538 @@ public class BufferedFFT {
             throws Exception {
         if (input.length > bufferSize) throw new Exception("Incorrect size");
 
-        for (int i = 0; i < input.length; ++i) {
-            inputBuffer[i].set(input[i]);
+        copyInput(input, input.length, 0);
+        engine.transform(inputRe, inputIm, input.length);
+        copyOutput(output, input.length);
+    }
+
+    /**
+     * Calculates the FFT of the input
+     * <p>
+     * Copies n elements of the real and imaginary input arrays into the buffer,
+     * calculates the FFT of that chunk, and copies the results to the output
+     * arrays.
+     * This version instantiates nothing on the heap and never touches a
+     * Complex object.
+     *
+     * @param re     Real parts of at least size offset+n to perform the FFT on
+     * @param im     Imaginary parts of at least size offset+n
+     * @param n      Number of elements of input to perform FFT on
+     * @param offset Place in input to start copying values from
+     * @param outRe  Array of at least size n to copy the real results to
+     * @param outIm  Array of at least size n to copy the imaginary results to
+     * @throws Exception If n is greater than the bufferSize of this object
+     */
+    public void calculateFFT(double[] re, double[] im, int n, int offset,
+                             double[] outRe, double[] outIm)
+            throws Exception {
+        if (n > bufferSize) throw new Exception("Incorrect size");
+        final double[] w = windowFor(n);
+        if (w == null) {
+            System.arraycopy(re, offset, inputRe, 0, n);
+            System.arraycopy(im, offset, inputIm, 0, n);
+        } else {
+            for (int i = 0; i < n; ++i) {
+                inputRe[i] = re[offset + i] * w[i];
+                inputIm[i] = im[offset + i] * w[i];
+            }
         }
-        BufferChunk res = fft(BufferChunk.getFull(inputBuffer));
+        engine.transform(inputRe, inputIm, n);
+        System.arraycopy(inputRe, 0, outRe, 0, n);
+        System.arraycopy(inputIm, 0, outIm, 0, n);
+    }
 
-        for (int i = 0; i < res.getCount(); ++i) {
-            output[i].set(res.get(i));
+    /**
+     * Calculates the inverse FFT of the input
+     * <p>
+     * Copies the entire array to the input buffer, calculates the inverse FFT
+     * of it, scaled by 1/n so it returns the values the input is the FFT of,
+     * and copies it to the output. The window is not applied.
+     * This version instantiates nothing on the heap!
+     *
+     * @param input  Array to perform the inverse FFT on
+     * @param output Array to copy the result of the inverse FFT to
+     * @throws Exception If size of input is greater than the bufferSize of this
+     *         object
+     */
+    public void calculateInverseFFT(Complex[] input, Complex[] output)
+            throws Exception {
+        final int n = input.length;
+        if (n > bufferSize) throw new Exception("Incorrect size");
+        for (int i = 0; i < n; ++i) {
+            inputRe[i] = input[i].getReal();
+            inputIm[i] = input[i].getImaginary();
         }
+        engine.inverseTransform(inputRe, inputIm, n);
+        copyOutput(output, n);
+    }
+
+    /**
+     * Calculates the inverse FFT of the input
+     * <p>
+     * Copies n elements of the real and imaginary input arrays into the buffer,
+     * calculates the inverse FFT of that chunk, scaled by 1/n so it returns the
+     * values the input is the FFT of, and copies the results to the output
+     * arrays. The window is not applied.
+     * This version instantiates nothing on the heap.
+     *
+     * @param re     Real parts of at least size offset+n
+     * @param im     Imaginary parts of at least size offset+n
+     * @param n      Number of elements of input to perform the inverse FFT on
+     * @param offset Place in input to start copying values from
+     * @param outRe  Array of at least size n to copy the real results to
+     * @param outIm  Array of at least size n to copy the imaginary results to
+     * @throws Exception If n is greater than the bufferSize of this object
+     */
+    public void calculateInverseFFT(double[] re, double[] im, int n,
+                                    int offset,
+                                    double[] outRe, double[] outIm)
+            throws Exception {
+        if (n > bufferSize) throw new Exception("Incorrect size");
+        System.arraycopy(re, offset, inputRe, 0, n);
+        System.arraycopy(im, offset, inputIm, 0, n);
+        engine.inverseTransform(inputRe, inputIm, n);
+        System.arraycopy(inputRe, 0, outRe, 0, n);
+        System.arraycopy(inputIm, 0, outIm, 0, n);
+    }
+
+    /**
+     * Calculates the FFT of n real values.
+     * <p>
+     * Copies n elements of the byte array input into the buffer and calculates
+     * the first n/2+1 bins of the FFT of that chunk, the rest of the bins
+     * being the complex conjugates of those. This takes about half the work
+     * of calculating all n bins.
+     *
+     * @param input  Array of at least size offset+n to perform the FFT on
+     * @param n      Number of elements of input to perform FFT on
+     * @param offset Place in input to start copying values from
+     * @param output Array of at least size n/2+1 to copy the results to
+     * @throws Exception If n is greater than the bufferSize of this object
+     */
+    public void calculateRealFFT(byte[] input, int n, int offset,
+                                 Complex[] output) throws Exception {
+        if (n > bufferSize) throw new Exception("Incorrect size");
+        packInput(input, n, offset);
+        transformPacked(n, false);
+        copyOutput(output, n / 2 + 1);
     }
 
-    private final Complex wk = new Complex(0, 0);
-    private final Complex wr = new Complex(0, 0);
+    /**
+     * Calculates the FFT of n real values.
+     * <p>
+     * Calculates the first n/2+1 bins of the FFT of n elements of the input,
+     * the rest of the bins being the complex conjugates of those.
+     * This version instantiates nothing on the heap.
+     *
+     * @param input  Array of at least size offset+n to perform the FFT on
+     * @param n      Number of elements of input to perform FFT on
+     * @param offset Place in input to start copying values from
+     * @param outRe  Array of at least size n/2+1 to copy the real results to
+     * @param outIm  Array of at least size n/2+1 to copy the imaginary results
+     *               to
+     * @throws Exception If n is greater than the bufferSize of this object
+     */
+    public void calculateRealFFT(double[] input, int n, int offset,
+                                 double[] outRe, double[] outIm)
+            throws Exception {
+        if (n > bufferSize) throw new Exception("Incorrect size");
+        pack(input, offset, n, windowFor(n), inputRe, inputIm);
+        transformPacked(n, false);
+        System.arraycopy(inputRe, 0, outRe, 0, n / 2 + 1);
+        System.arraycopy(inputIm, 0, outIm, 0, n / 2 + 1);
+    }
 
-    private BufferChunk fft(BufferChunk chunk) {
+    /**
+     * Calculates the FFT of n real samples read from a ByteBuffer.
+     * <p>
+     * Reads the samples straight into the buffer of this object, without
+     * going through a byte[] first, and calculates the first n/2+1 bins of
+     * their FFT. The position of input is not changed.
+     *
+     * @param input  Buffer holding the samples, read with its byte order
+     * @param index  Byte index in input of the first sample
+     * @param n      Number of samples to perform FFT on
+     * @param format Encoding of the samples
+     * @param outRe  Array of at least size n/2+1 to copy the real results to
+     * @param outIm  Array of at least size n/2+1 to copy the imaginary results
+     *               to
+     * @throws Exception If n is greater than the bufferSize of this object
+     */
+    public void calculateRealFFT(ByteBuffer input, int index, int n,
+                                 SampleFormat format,
+                                 double[] outRe, double[] outIm)
+            throws Exception {
+        calculateRealFFT(input, index, format.getBytes(), n, format,
+                outRe, outIm);
+    }
 
-        final int N = chunk.getCount();
+    /**
+     * Calculates the FFT of n real samples read from a ByteBuffer, the
+     * samples being stride bytes apart, such as one channel of interleaved
+     * multi-channel PCM.
+     *
+     * @param input  Buffer holding the samples, read with its byte order
+     * @param index  Byte index in input of the first sample
+     * @param stride Number of bytes from the start of one sample to the start
+     *               of the next, channels*format.getBytes() for interleaved
+     *               channels
+     * @param n      Number of samples to perform FFT on
+     * @param format Encoding of the samples
+     * @param outRe  Array of at least size n/2+1 to copy the real results to
+     * @param outIm  Array of at least size n/2+1 to copy the imaginary results
+     *               to
+     * @throws Exception If n is greater than the bufferSize of this object
+     */
+    public void calculateRealFFT(ByteBuffer input, int index, int stride,
+                                 int n, SampleFormat format,
+                                 double[] outRe, double[] outIm)
+            throws Exception {
+        if (n > bufferSize) throw new Exception("Incorrect size");
+        pack(input, index, stride, format, n, windowFor(n), inputRe, inputIm);
+        transformPacked(n, false);
+        System.arraycopy(inputRe, 0, outRe, 0, n / 2 + 1);
+        System.arraycopy(inputIm, 0, outIm, 0, n / 2 + 1);
+    }
 
-        if (N == 1) {
-            useOddBuffer = true;
-            BufferChunk b = new BufferChunk(
-                    getBuffer(),
-                    chunk.getOffset(),
-                    chunk.getMultiplier(),
-                    chunk.getCount()
-            );
-            b.get(0).set(chunk.get(0));
-            return b;
+    /**
+     * Calculates the FFT of n real samples read from a ByteBuffer into a
+     * DoubleBuffer.
+     * <p>
+     * Writes the first n/2+1 bins as pairs of real and imaginary parts at the
+     * position of output and moves the position past them, so calling this
+     * for consecutive frames fills a spectrogram, which may be a direct
+     * buffer kept off the heap. The position of input is not changed.
+     *
+     * @param input  Buffer holding the samples, read with its byte order
+     * @param index  Byte index in input of the first sample
+     * @param n      Number of samples to perform FFT on
+     * @param format Encoding of the samples
+     * @param output Buffer with at least n+2 values remaining
+     * @throws Exception If n is greater than the bufferSize of this object
+     */
+    public void calculateRealFFT(ByteBuffer input, int index, int n,
+                                 SampleFormat format, DoubleBuffer output)
+            throws Exception {
+        if (n > bufferSize) throw new Exception("Incorrect size");
+        if (output.remaining() < 2 * (n / 2 + 1)) {
+            throw new Exception("Incorrect size");
+        }
+        pack(input, index, format.getBytes(), format, n, windowFor(n),
+                inputRe, inputIm);
+        transformPacked(n, false);
+        int position = output.position();
+        for (int k = 0; k <= n / 2; ++k) {
+            output.put(position + 2 * k, inputRe[k]);
+            output.put(position + 2 * k + 1, inputIm[k]);
+        }
+        output.position(position + 2 * (n / 2 + 1));
+    }
+
+    /**
+     * Calculates the spectrum of n real values as magnitudes, powers or
+     * decibels, without any Complex results.
+     * <p>
+     * Copies n elements of the byte array input into the buffer and writes
+     * the first n/2+1 bins of the spectrum of that chunk to output, computed
+     * as the bins are made rather than in a pass over a complex result. If
+     * allBins is set the other bins, mirrors of the first ones, are written
+     * too. This version instantiates nothing on the heap.
+     *
+     * @param input   Array of at least size offset+n to perform the FFT on
+     * @param n       Number of elements of input to perform FFT on
+     * @param offset  Place in input to start copying values from
+     * @param type    Form of the output
+     * @param output  Array of at least size n/2+1, or n if allBins is set, to
+     *                write the bins to
+     * @param allBins Whether to write all n bins instead of the first n/2+1
+     * @throws Exception If n is greater than the bufferSize of this object
+     */
+    public void calculateSpectrum(byte[] input, int n, int offset,
+                                  SpectrumType type, double[] output,
+                                  boolean allBins) throws Exception {
+        if (n > bufferSize) throw new Exception("Incorrect size");
+        packInput(input, n, offset);
+        spectrumPacked(n, type, output, allBins);
+    }
+
+    /**
+     * Calculates the spectrum of n real values as magnitudes, powers or
+     * decibels, the same way as the byte[] version.
+     *
+     * @param input   Array of at least size offset+n to perform the FFT on
+     * @param n       Number of elements of input to perform FFT on
+     * @param offset  Place in input to start copying values from
+     * @param type    Form of the output
+     * @param output  Array of at least size n/2+1, or n if allBins is set, to
+     *                write the bins to
+     * @param allBins Whether to write all n bins instead of the first n/2+1
+     * @throws Exception If n is greater than the bufferSize of this object
+     */
+    public void calculateSpectrum(double[] input, int n, int offset,
+                                  SpectrumType type, double[] output,
+                                  boolean allBins) throws Exception {
+        if (n > bufferSize) throw new Exception("Incorrect size");
+        pack(input, offset, n, windowFor(n), inputRe, inputIm);
+        spectrumPacked(n, type, output, allBins);
+    }
+
+    /**
+     * Calculates the inverse FFT of a real signal.
+     * <p>
+     * Takes the first n/2+1 bins of a spectrum, like the ones returned by
+     * calculateRealFFT, and copies the n real values they are the spectrum of
+     * to output.
+     *
+     * @param re     Real parts of the first n/2+1 bins
+     * @param im     Imaginary parts of the first n/2+1 bins
+     * @param n      Number of real values to calculate
+     * @param output Array of at least size n to copy the results to
+     * @throws Exception If n is greater than the bufferSize of this object
+     */
+    public void calculateInverseRealFFT(double[] re, double[] im, int n,
+                                        double[] output) throws Exception {
+        if (n > bufferSize) throw new Exception("Incorrect size");
+        if ((n & 1) == 0) {
+            System.arraycopy(re, 0, inputRe, 0, n / 2 + 1);
+            System.arraycopy(im, 0, inputIm, 0, n / 2 + 1);
+            engine.inverseTransformReal(inputRe, inputIm, n, output, 0);
+            return;
+        }
+
+        // odd sizes have no half size transform, so the whole conjugated
+        // spectrum is transformed, the real part of that being n times the
+        // inverse
+        for (int k = 0; k <= n / 2; ++k) {
+            inputRe[k] = re[k];
+            inputIm[k] = -im[k];
+        }
+        for (int k = n / 2 + 1; k < n; ++k) {
+            inputRe[k] = re[n - k];
+            inputIm[k] = im[n - k];
+        }
+        engine.transform(inputRe, inputIm, n);
+        for (int i = 0; i < n; ++i) {
+            output[i] = inputRe[i] / n;
+        }
+    }
+
+    /**
+     * Calculates the FFTs of many frames of real values in one call.
+     * <p>
+     * Frame f is the n elements of input starting at offset+f*hop, so frames
+     * overlap when hop is less than n. The first n/2+1 bins of the FFT of
+     * frame f are copied to outRe and outIm starting at f*(n/2+1), the rest of
+     * the bins being the complex conjugates of those.
+     * Sizes are checked and the plan is looked up once for all the frames, and
+     * nothing is instantiated on the heap.
+     *
+     * @param input  Array holding all the frames
+     * @param offset Place in input the first frame starts at
+     * @param n      Number of elements in each frame
+     * @param hop    Number of elements from the start of one frame to the
+     *               start of the next
+     * @param frames Number of frames to perform the FFT on
+     * @param outRe  Array of at least size frames*(n/2+1) to copy the real
+     *               results to
+     * @param outIm  Array of at least size frames*(n/2+1) to copy the
+     *               imaginary results to
+     * @throws Exception If n is greater than the bufferSize of this object or
+     *         the frames don't fit in input or output
+     */
+    public void calculateFFTs(byte[] input, int offset, int n, int hop,
+                              int frames, double[] outRe, double[] outIm)
+            throws Exception {
+        checkFrames(bufferSize, input.length, offset, n, hop, frames,
+                outRe.length, outIm.length);
+        transformFrames(engine, inputRe, inputIm, windowFor(n),
+                input, offset, n, hop, 0, frames, outRe, outIm);
+    }
+
+    static void checkFrames(int bufferSize, int inputLength, int offset,
+                            int n, int hop, int frames,
+                            int outReLength, int outImLength)
+            throws Exception {
+        if (n > bufferSize || n < 1 || hop < 1 || frames < 0 || offset < 0) {
+            throw new Exception("Incorrect size");
+        }
+        if (frames == 0) return;
+        long last = offset + (long) (frames - 1) * hop + n;
+        long bins = (long) frames * (n / 2 + 1);
+        if (last > inputLength || bins > outReLength || bins > outImLength) {
+            throw new Exception("Incorrect size");
+        }
+    }
+
+    /**
+     * Calculates the first n/2+1 bins of the FFTs of frames [from, to) into
+     * the output using the given engine and work buffers.
+     */
+    static void transformFrames(ArrayFFT engine, double[] re, double[] im,
+                                double[] window,
+                                byte[] input, int offset, int n, int hop,
+                                int from, int to,
+                                double[] outRe, double[] outIm)
+            throws Exception {
+        final int bins = n / 2 + 1;
+        for (int f = from; f < to; ++f) {
+            pack(input, offset + f * hop, n, window, re, im);
+            if ((n & 1) == 0) engine.transformPackedReal(re, im, n);
+            else engine.transform(re, im, n);
+            System.arraycopy(re, 0, outRe, f * bins, bins);
+            System.arraycopy(im, 0, outIm, f * bins, bins);
+        }
+    }
+
+    private void copyInput(Complex[] input, int n, int offset) {
+        final double[] w = windowFor(n);
+        for (int i = 0; i < n; ++i) {
+            double scale = w == null ? 1 : w[i];
+            inputRe[i] = input[i + offset].getReal() * scale;
+            inputIm[i] = input[i + offset].getImaginary() * scale;
+        }
+    }
+
+    private void packInput(byte[] input, int n, int offset) {
+        pack(input, offset, n, windowFor(n), inputRe, inputIm);
+    }
+
+    /**
+     * Copies n real values into re and im multiplied by the window, packed as
+     * n/2 complex values when n is even so that the half size real FFT can be
+     * used, or as n values with no imaginary part when n is odd.
+     *
+     * @param window Coefficients to multiply by, or null for none
+     */
+    static void pack(byte[] input, int offset, int n, double[] window,
+                     double[] re, double[] im) {
+        if ((n & 1) != 0) {
+            for (int i = 0; i < n; ++i) {
+                double scale = window == null ? 1 : window[i];
+                re[i] = input[offset + i] * scale;
+                im[i] = 0;
+            }
+        } else if (window == null) {
+            for (int k = 0; k < n / 2; ++k) {
+                re[k] = input[offset + 2 * k];
+                im[k] = input[offset + 2 * k + 1];
+            }
+        } else {
+            for (int k = 0; k < n / 2; ++k) {
+                re[k] = input[offset + 2 * k] * window[2 * k];
+                im[k] = input[offset + 2 * k + 1] * window[2 * k + 1];
+            }
+        }
+    }
+
+    /**
+     * Copies n real values into re and im the same way as the byte[] version.
+     */
+    static void pack(double[] input, int offset, int n, double[] window,
+                     double[] re, double[] im) {
+        if ((n & 1) != 0) {
+            for (int i = 0; i < n; ++i) {
+                double scale = window == null ? 1 : window[i];
+                re[i] = input[offset + i] * scale;
+                im[i] = 0;
+            }
+        } else if (window == null) {
+            for (int k = 0; k < n / 2; ++k) {
+                re[k] = input[offset + 2 * k];
+                im[k] = input[offset + 2 * k + 1];
+            }
+        } else {
+            for (int k = 0; k < n / 2; ++k) {
+                re[k] = input[offset + 2 * k] * window[2 * k];
+                im[k] = input[offset + 2 * k + 1] * window[2 * k + 1];
+            }
+        }
+    }
+
+    /**
+     * Copies n samples of a ByteBuffer, stride bytes apart, into re and im the
+     * same way as the byte[] version.
+     */
+    static void pack(ByteBuffer input, int index, int stride,
+                     SampleFormat format, int n, double[] window,
+                     double[] re, double[] im) {
+        if ((n & 1) != 0) {
+            for (int i = 0; i < n; ++i) {
+                double scale = window == null ? 1 : window[i];
+                re[i] = format.read(input, index + i * stride) * scale;
+                im[i] = 0;
+            }
+        } else {
+            for (int k = 0; k < n / 2; ++k) {
+                double even = format.read(input, index + 2 * k * stride);
+                double odd = format.read(input, index + (2 * k + 1) * stride);
+                if (window != null) {
+                    even *= window[2 * k];
+                    odd *= window[2 * k + 1];
+                }
+                re[k] = even;
+                im[k] = odd;
+            }
         }
+    }
+
+    /**
+     * Calculates the FFT of input copied in by packInput, leaving at least the
+     * first n/2+1 bins in the buffer, or all n bins if allBins is set.
+     */
+    private void transformPacked(int n, boolean allBins) throws Exception {
+        transformPacked(engine, inputRe, inputIm, n, allBins);
+    }
 
-        BufferChunk even = fft(BufferChunk.getEvens(chunk));
-        BufferChunk odd = fft(BufferChunk.getOdds(chunk));
-
-        useOddBuffer = !useOddBuffer;
-
-        // combine
-        BufferChunk ret = new BufferChunk(
-                getBuffer(),
-                chunk.getOffset(),
-                chunk.getMultiplier(),
-                chunk.getCount()
-        );
-
-        for (int k = 0; k < N / 2; k++) {
-            double kth = -2 * k * Math.PI / N;
-            wk.set(Math.cos(kth), Math.sin(kth));
-            wk.times(odd.get(k), wr);
-            even.get(k).plus(wr, ret.get(k));
-            even.get(k).minus(wr, ret.get(k + N / 2));
+    /**
+     * Calculates the FFT of n real values copied into re and im by pack with
+     * the given engine, filling in the mirrored bins if allBins is set.
+     */
+    static void transformPacked(ArrayFFT engine, double[] re, double[] im,
+                                int n, boolean allBins) throws Exception {
+        if ((n & 1) != 0) {
+            engine.transform(re, im, n);
+            return;
+        }
+        engine.transformPackedReal(re, im, n);
+        if (!allBins) return;
+        for (int k = 1; k < n / 2; ++k) {
+            re[n - k] = re[k];
+            im[n - k] = -im[k];
+        }
+    }
+
+    /**
+     * Writes the spectrum of input copied in by pack to output.
+     */
+    private void spectrumPacked(int n, SpectrumType type, double[] output,
+                                boolean allBins) throws Exception {
+        final int half = n / 2 + 1;
+        if ((n & 1) == 0 || n == 1) {
+            engine.transformPackedRealSpectrum(inputRe, inputIm, n, type,
+                    output);
+        } else {
+            // odd sizes have no half size transform
+            engine.transform(inputRe, inputIm, n);
+            ComplexArrays.squaredMagnitudes(inputRe, inputIm, output, half);
+            type.fromPower(output, 0, half);
+        }
+        if (!allBins) return;
+        for (int k = half; k < n; ++k) {
+            output[k] = output[n - k];
+        }
+    }
+
+    private void copyOutput(Complex[] output, int n) {
+        for (int i = 0; i < n; ++i) {
+            output[i].set(inputRe[i], inputIm[i]);
+        }
+    }
+
+    private Complex[] createOutput(int n) {
+        Complex[] ret = new Complex[n];
+        for (int i = 0; i < n; ++i) {
+            ret[i] = new Complex(inputRe[i], inputIm[i]);
         }
         return ret;
     }
@@ -17,6 +17,9 @@ public class Complex {
         set(real,imaginary);
     }
 
+    public double getReal() { return a; }
+    public double getImaginary() { return b; }
+
     public void set(double real, double imaginary) {
         a = real;
         b = imaginary;
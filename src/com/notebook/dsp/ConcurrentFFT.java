@@ -0,0 +1,375 @@
+package com.notebook.dsp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A ConcurrentFFT object calculates FFTs for any number of threads at once.
+ * <p>
+ * Unlike BufferedFFT, which has a single set of buffers and so can only run
+ * one transform at a time, a ConcurrentFFT keeps a pool of work buffers and
+ * gives every transform in flight its own. Buffers are taken from and put
+ * back in the pool without locking, and new ones are only created when more
+ * transforms are running at once than there are buffers in the pool, so in
+ * steady state nothing is instantiated on the heap besides what the calling
+ * overload returns.
+ */
+public class ConcurrentFFT {
+
+    /**
+     * Buffers for a single transform
+     */
+    private static class Workspace {
+        final ArrayFFT engine;
+        final double[] re;
+        final double[] im;
+
+        Workspace(int N) {
+            engine = new ArrayFFT(N);
+            re = new double[N];
+            im = new double[N];
+        }
+    }
+
+    /**
+     * Maximum size of the input
+     */
+    private final int bufferSize;
+
+    /**
+     * Idle workspaces, empty slots being null
+     */
+    private final AtomicReferenceArray<Workspace> pool;
+
+    /**
+     * Window applied to the input of forward transforms, null for none
+     */
+    private volatile Window window;
+
+    /**
+     * Constructor that keeps up to one work buffer per available processor
+     *
+     * @param N Maximum size of expected input
+     */
+    public ConcurrentFFT(int N) {
+        this(N, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param N        Maximum size of expected input
+     * @param poolSize Number of idle work buffers kept for reuse, usually the
+     *                 number of threads expected to transform at once
+     */
+    public ConcurrentFFT(int N, int poolSize) {
+        bufferSize = N;
+        pool = new AtomicReferenceArray<>(Math.max(1, poolSize));
+    }
+
+    public int getBufferSize() { return bufferSize; }
+
+    /**
+     * Sets the window every forward transform's input is multiplied by while
+     * being copied into a work buffer, as BufferedFFT does. Transforms
+     * already running keep the window they started with.
+     *
+     * @param window Window to apply, or null to use the input as is
+     */
+    public void setWindow(Window window) {
+        this.window = window;
+    }
+
+    public Window getWindow() { return window; }
+
+    private double[] windowFor(int n) {
+        Window w = window;
+        return w == null ? null : w.coefficients(n);
+    }
+
+    /**
+     * Takes an idle workspace out of the pool, starting at a slot picked by
+     * the thread so that threads don't all fight over the first slot.
+     */
+    private Workspace borrow() {
+        final int slots = pool.length();
+        final int start = (int) (Thread.currentThread().getId() % slots);
+        for (int i = 0; i < slots; ++i) {
+            int slot = (start + i) % slots;
+            Workspace w = pool.get(slot);
+            if (w != null && pool.compareAndSet(slot, w, null)) return w;
+        }
+        return new Workspace(bufferSize);
+    }
+
+    /**
+     * Puts a workspace back in the pool, dropping it if the pool is full.
+     */
+    private void release(Workspace w) {
+        final int slots = pool.length();
+        final int start = (int) (Thread.currentThread().getId() % slots);
+        for (int i = 0; i < slots; ++i) {
+            int slot = (start + i) % slots;
+            if (pool.get(slot) == null && pool.compareAndSet(slot, null, w)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Calculates the FFT of the input.
+     * <p>
+     * Copies n elements of the byte array input into a work buffer,
+     * calculates the FFT of that chunk, and copies the results to output.
+     * As in BufferedFFT, the input is real, so the first n/2+1 bins come from
+     * a half size FFT and the rest are their complex conjugates.
+     * May be called from any number of threads at once.
+     *
+     * @param input  Array of at least size offset+n to perform the FFT on
+     * @param n      Number of elements of input to perform FFT on
+     * @param offset Place in input to start copying values from
+     * @param output Array of at least size n to copy the results to
+     * @throws Exception If n is greater than the bufferSize of this object
+     */
+    public void calculateFFT(byte[] input, int n, int offset, Complex[] output)
+            throws Exception {
+        if (n > bufferSize) throw new Exception("Incorrect size");
+        Workspace w = borrow();
+        try {
+            BufferedFFT.pack(input, offset, n, windowFor(n), w.re, w.im);
+            BufferedFFT.transformPacked(w.engine, w.re, w.im, n, true);
+            copyOutput(w, output, n);
+        } finally {
+            release(w);
+        }
+    }
+
+    /**
+     * Calculates the FFT of the input.
+     * <p>
+     * Copies the entire array into a work buffer, calculates the FFT of it,
+     * and copies it to the output.
+     * May be called from any number of threads at once.
+     *
+     * @param input  Array to perform the FFT on
+     * @param output Array of at least the size of input to copy the results
+     *               to
+     * @throws Exception If size of input is greater than the bufferSize of this
+     *         object
+     */
+    public void calculateFFT(Complex[] input, Complex[] output)
+            throws Exception {
+        final int n = input.length;
+        if (n > bufferSize) throw new Exception("Incorrect size");
+        Workspace w = borrow();
+        try {
+            copyInput(w, input, n, 0);
+            w.engine.transform(w.re, w.im, n);
+            copyOutput(w, output, n);
+        } finally {
+            release(w);
+        }
+    }
+
+    /**
+     * Calculates the FFT of the input.
+     * <p>
+     * Copies n elements of the real and imaginary input arrays into a work
+     * buffer, calculates the FFT of that chunk, and copies the results to the
+     * output arrays.
+     * May be called from any number of threads at once.
+     *
+     * @param re     Real parts of at least size offset+n to perform the FFT on
+     * @param im     Imaginary parts of at least size offset+n
+     * @param n      Number of elements of input to perform FFT on
+     * @param offset Place in input to start copying values from
+     * @param outRe  Array of at least size n to copy the real results to
+     * @param outIm  Array of at least size n to copy the imaginary results to
+     * @throws Exception If n is greater than the bufferSize of this object
+     */
+    public void calculateFFT(double[] re, double[] im, int n, int offset,
+                             double[] outRe, double[] outIm)
+            throws Exception {
+        if (n > bufferSize) throw new Exception("Incorrect size");
+        final double[] table = windowFor(n);
+        Workspace w = borrow();
+        try {
+            if (table == null) {
+                System.arraycopy(re, offset, w.re, 0, n);
+                System.arraycopy(im, offset, w.im, 0, n);
+            } else {
+                for (int i = 0; i < n; ++i) {
+                    w.re[i] = re[offset + i] * table[i];
+                    w.im[i] = im[offset + i] * table[i];
+                }
+            }
+            w.engine.transform(w.re, w.im, n);
+            System.arraycopy(w.re, 0, outRe, 0, n);
+            System.arraycopy(w.im, 0, outIm, 0, n);
+        } finally {
+            release(w);
+        }
+    }
+
+    /**
+     * Calculates the FFT of the input.
+     * <p>
+     * Copies n elements of the byte array input into a work buffer on the
+     * calling thread, so input may be reused as soon as this returns, and then
+     * starts a task that calculates the FFT of that chunk and returns the
+     * future of that task. Any number of these may be in flight at once.
+     * The input is transformed as real values, as in calculateFFT.
+     *
+     * @param input    Array of at least size offset+n to perform the FFT on
+     * @param n        Number of elements of input to perform FFT on
+     * @param offset   Place in input to start copying values from
+     * @param output   Output buffer to copy the results to.
+     * @param executor Thread pool to run the FFT calculation on
+     * @return A future pointing to the inputted output buffer storing the
+     *         result of FFT
+     * @throws Exception If n is greater than the bufferSize of this object
+     */
+    public Future<Complex[]> callableFFT(byte[] input,
+                                         int n, int offset,
+                                         Complex[] output,
+                                         ExecutorService executor)
+            throws Exception {
+        if (n > bufferSize) throw new Exception("Incorrect size");
+        final Workspace w = borrow();
+        BufferedFFT.pack(input, offset, n, windowFor(n), w.re, w.im);
+        return submit(w, n, true, output, executor);
+    }
+
+    /**
+     * Calculates the FFT of the input.
+     * <p>
+     * Copies n elements of the input into a work buffer on the calling
+     * thread, so input may be reused as soon as this returns, and then starts
+     * a task that calculates the FFT of that chunk and returns the future of
+     * that task. Any number of these may be in flight at once.
+     *
+     * @param input    Array of at least size offset+n to perform the FFT on
+     * @param n        Number of elements of input to perform FFT on
+     * @param offset   Place in input to start copying values from
+     * @param output   Output buffer to copy the results to.
+     * @param executor Thread pool to run the FFT calculation on
+     * @return A future pointing to the inputted output buffer storing the
+     *         result of FFT
+     * @throws Exception If n is greater than the bufferSize of this object
+     */
+    public Future<Complex[]> callableFFT(Complex[] input,
+                                         int n, int offset,
+                                         Complex[] output,
+                                         ExecutorService executor)
+            throws Exception {
+        if (n > bufferSize) throw new Exception("Incorrect size");
+        final Workspace w = borrow();
+        copyInput(w, input, n, offset);
+        return submit(w, n, false, output, executor);
+    }
+
+    /**
+     * Calculates the FFTs of many frames of real values in one call, spread
+     * across the threads of executor.
+     * <p>
+     * Takes the same input and gives the same output as
+     * BufferedFFT.calculateFFTs. The frames are split into one run of
+     * consecutive frames per pooled work buffer, and each run is transformed
+     * on executor with its own buffer. Returns once every frame is done.
+     *
+     * @param input    Array holding all the frames
+     * @param offset   Place in input the first frame starts at
+     * @param n        Number of elements in each frame
+     * @param hop      Number of elements from the start of one frame to the
+     *                 start of the next
+     * @param frames   Number of frames to perform the FFT on
+     * @param outRe    Array of at least size frames*(n/2+1) to copy the real
+     *                 results to
+     * @param outIm    Array of at least size frames*(n/2+1) to copy the
+     *                 imaginary results to
+     * @param executor Thread pool to run the FFT calculations on
+     * @throws Exception If n is greater than the bufferSize of this object,
+     *         the frames don't fit in input or output, or a calculation fails
+     */
+    public void calculateFFTs(byte[] input, int offset, int n, int hop,
+                              int frames, double[] outRe, double[] outIm,
+                              ExecutorService executor)
+            throws Exception {
+        BufferedFFT.checkFrames(bufferSize, input.length, offset, n, hop,
+                frames, outRe.length, outIm.length);
+
+        final double[] table = windowFor(n);
+        final int runs = Math.max(1, Math.min(frames, pool.length()));
+        List<Callable<Void>> tasks = new ArrayList<>(runs);
+        for (int r = 0; r < runs; ++r) {
+            final int from = (int) ((long) frames * r / runs);
+            final int to = (int) ((long) frames * (r + 1) / runs);
+            tasks.add(() -> {
+                Workspace w = borrow();
+                try {
+                    BufferedFFT.transformFrames(w.engine, w.re, w.im,
+                            table, input, offset, n, hop, from, to,
+                            outRe, outIm);
+                } finally {
+                    release(w);
+                }
+                return null;
+            });
+        }
+        for (Future<Void> future : executor.invokeAll(tasks)) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Exception) throw (Exception) cause;
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Starts a task transforming the input copied into w, packed real values
+     * if real is set and complex values otherwise.
+     */
+    private Future<Complex[]> submit(Workspace w, int n, boolean real,
+                                     Complex[] output,
+                                     ExecutorService executor) {
+        Callable<Complex[]> task = () -> {
+            try {
+                if (real) {
+                    BufferedFFT.transformPacked(w.engine, w.re, w.im, n, true);
+                } else {
+                    w.engine.transform(w.re, w.im, n);
+                }
+                copyOutput(w, output, n);
+                return output;
+            } finally {
+                release(w);
+            }
+        };
+        try {
+            return executor.submit(task);
+        } catch (RuntimeException e) {
+            release(w);
+            throw e;
+        }
+    }
+
+    private void copyInput(Workspace w, Complex[] input, int n, int offset) {
+        final double[] table = windowFor(n);
+        for (int i = 0; i < n; ++i) {
+            double scale = table == null ? 1 : table[i];
+            w.re[i] = input[i + offset].getReal() * scale;
+            w.im[i] = input[i + offset].getImaginary() * scale;
+        }
+    }
+
+    private static void copyOutput(Workspace w, Complex[] output, int n) {
+        for (int i = 0; i < n; ++i) {
+            output[i].set(w.re[i], w.im[i]);
+        }
+    }
+}
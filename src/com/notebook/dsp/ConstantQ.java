@@ -0,0 +1,255 @@
+package com.notebook.dsp;
+
+import java.util.Arrays;
+
+/**
+ * Constant-Q transform, with bins spaced logarithmically at a fixed number
+ * per octave so they line up with musical notes.
+ * <p>
+ * Bin k is centred on minFrequency*2^(k/binsPerOctave) and has a bandwidth
+ * proportional to that frequency, its temporal kernel being Q periods of it
+ * under a Hamming window, which makes the kernels of low bins much longer
+ * than those of high ones. Following Brown and Puckette, the transform of
+ * every kernel is calculated once, when the transform is built, and the
+ * values below threshold times the largest one are dropped. Almost all of
+ * every spectral kernel is then zero, so each frame costs one real FFT from
+ * a BufferedFFT plus a sparse product over the few bins each kernel covers,
+ * instead of one long filter per bin.
+ * <p>
+ * Only the first fftSize/2+1 bins of a frame's spectrum are used, which for
+ * real input loses only the negative frequency side lobes of the kernels,
+ * below the threshold for the default one. A ConstantQ must only be used by
+ * one thread at a time.
+ */
+public class ConstantQ {
+
+    /**
+     * Sparsity threshold suggested by Brown and Puckette
+     */
+    public static final double DEFAULT_THRESHOLD = 0.0054;
+
+    private final double sampleRate;
+    private final double minFrequency;
+    private final int binsPerOctave;
+    private final int bins;
+    private final int fftSize;
+
+    /**
+     * Spectral kernels as a sparse matrix in compressed rows: the entries of
+     * bin k are at [rowStart[k], rowStart[k+1]) of column, kernelRe and
+     * kernelIm, column being the FFT bin each one multiplies
+     */
+    private final int[] rowStart;
+    private final int[] column;
+    private final double[] kernelRe;
+    private final double[] kernelIm;
+
+    private final BufferedFFT fft;
+    private final double[] samples;
+    private final double[] spectrumRe;
+    private final double[] spectrumIm;
+    private final double[] binRe;
+    private final double[] binIm;
+
+    /**
+     * Constructor that uses the default threshold
+     *
+     * @param sampleRate    Samples per second of the frames
+     * @param minFrequency  Centre frequency of the first bin in Hz
+     * @param binsPerOctave Number of bins in each octave, 12 for semitones
+     * @param bins          Number of bins
+     */
+    public ConstantQ(double sampleRate, double minFrequency,
+                     int binsPerOctave, int bins) {
+        this(sampleRate, minFrequency, binsPerOctave, bins, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param sampleRate    Samples per second of the frames
+     * @param minFrequency  Centre frequency of the first bin in Hz
+     * @param binsPerOctave Number of bins in each octave, 12 for semitones
+     * @param bins          Number of bins, the last one below sampleRate/2
+     * @param threshold     Fraction of the largest value of a spectral kernel
+     *                      below which its values are dropped, 0 to keep
+     *                      them all
+     */
+    public ConstantQ(double sampleRate, double minFrequency,
+                     int binsPerOctave, int bins, double threshold) {
+        if (minFrequency <= 0 || binsPerOctave < 1 || bins < 1
+                || frequency(minFrequency, binsPerOctave, bins - 1)
+                >= sampleRate / 2) {
+            throw new IllegalArgumentException("Incorrect size");
+        }
+        this.sampleRate = sampleRate;
+        this.minFrequency = minFrequency;
+        this.binsPerOctave = binsPerOctave;
+        this.bins = bins;
+
+        final double Q = 1 / (Math.pow(2, 1.0 / binsPerOctave) - 1);
+        final int longest = (int) Math.ceil(Q * sampleRate / minFrequency);
+        fftSize = Math.max(2, Integer.highestOneBit(longest - 1) << 1);
+        final int half = fftSize / 2 + 1;
+
+        // build every kernel in turn, keeping the entries over the threshold
+        int[] columns = new int[16];
+        double[] values = new double[32];
+        int count = 0;
+        rowStart = new int[bins + 1];
+
+        ArrayFFT engine = new ArrayFFT(fftSize);
+        double[] re = new double[fftSize];
+        double[] im = new double[fftSize];
+        for (int k = 0; k < bins; ++k) {
+            int length = (int) Math.ceil(Q * sampleRate
+                    / frequency(minFrequency, binsPerOctave, k));
+            int start = (fftSize - length) / 2;
+            Arrays.fill(re, 0);
+            Arrays.fill(im, 0);
+            // the Hamming window is computed here rather than taken from
+            // Window.HAMMING, whose cache would keep a table for every length
+            for (int n = 0; n < length; ++n) {
+                double window = 0.54
+                        - 0.46 * Math.cos(2 * Math.PI * n / length);
+                double angle = 2 * Math.PI * Q * n / length;
+                re[start + n] = window / length * Math.cos(angle);
+                im[start + n] = window / length * Math.sin(angle);
+            }
+            try {
+                engine.transform(re, im, fftSize);
+            } catch (Exception e) {
+                // fftSize is within the buffer size
+                throw new IllegalStateException(e);
+            }
+
+            double max = 0;
+            for (int j = 0; j < half; ++j) {
+                max = Math.max(max, re[j] * re[j] + im[j] * im[j]);
+            }
+            double min = threshold * threshold * max;
+            rowStart[k] = count;
+            for (int j = 0; j < half; ++j) {
+                double power = re[j] * re[j] + im[j] * im[j];
+                if (power == 0 || power < min) continue;
+                if (count == columns.length) {
+                    columns = Arrays.copyOf(columns, 2 * count);
+                    values = Arrays.copyOf(values, 4 * count);
+                }
+                // x.conj(t) = (1/N) X.conj(T) by Parseval
+                columns[count] = j;
+                values[2 * count] = re[j] / fftSize;
+                values[2 * count + 1] = -im[j] / fftSize;
+                ++count;
+            }
+        }
+        rowStart[bins] = count;
+
+        column = Arrays.copyOf(columns, count);
+        kernelRe = new double[count];
+        kernelIm = new double[count];
+        for (int e = 0; e < count; ++e) {
+            kernelRe[e] = values[2 * e];
+            kernelIm[e] = values[2 * e + 1];
+        }
+
+        fft = new BufferedFFT(fftSize);
+        samples = new double[fftSize];
+        spectrumRe = new double[half];
+        spectrumIm = new double[half];
+        binRe = new double[bins];
+        binIm = new double[bins];
+    }
+
+    private static double frequency(double minFrequency, int binsPerOctave,
+                                    int k) {
+        return minFrequency * Math.pow(2, (double) k / binsPerOctave);
+    }
+
+    public double getSampleRate() { return sampleRate; }
+    public int getBinsPerOctave() { return binsPerOctave; }
+    public int getBinCount() { return bins; }
+
+    /**
+     * @return Number of samples in each frame, the size of the FFT
+     */
+    public int getFFTSize() { return fftSize; }
+
+    /**
+     * @return Number of values kept in all the spectral kernels together
+     */
+    public int getKernelSize() { return column.length; }
+
+    /**
+     * @param k Index of a bin
+     * @return Centre frequency of bin k in Hz
+     */
+    public double getFrequency(int k) {
+        return frequency(minFrequency, binsPerOctave, k);
+    }
+
+    /**
+     * Calculates the constant-Q transform of getFFTSize() samples.
+     *
+     * @param input  Array of at least size offset+getFFTSize() of samples
+     * @param offset Place in input the frame starts at
+     * @param outRe  Array of at least size getBinCount() for the real parts
+     * @param outIm  Array of at least size getBinCount() for the imaginary
+     *               parts
+     * @throws Exception If the input is shorter than a frame
+     */
+    public void calculate(byte[] input, int offset,
+                          double[] outRe, double[] outIm) throws Exception {
+        if (input.length - offset < fftSize) {
+            throw new Exception("Incorrect size");
+        }
+        for (int i = 0; i < fftSize; ++i) {
+            samples[i] = input[offset + i];
+        }
+        calculate(samples, 0, outRe, outIm);
+    }
+
+    /**
+     * Calculates the constant-Q transform of getFFTSize() samples.
+     *
+     * @param input  Array of at least size offset+getFFTSize() of samples
+     * @param offset Place in input the frame starts at
+     * @param outRe  Array of at least size getBinCount() for the real parts
+     * @param outIm  Array of at least size getBinCount() for the imaginary
+     *               parts
+     * @throws Exception If the input is shorter than a frame
+     */
+    public void calculate(double[] input, int offset,
+                          double[] outRe, double[] outIm) throws Exception {
+        if (input.length - offset < fftSize) {
+            throw new Exception("Incorrect size");
+        }
+        fft.calculateRealFFT(input, fftSize, offset, spectrumRe, spectrumIm);
+        for (int k = 0; k < bins; ++k) {
+            double sumRe = 0;
+            double sumIm = 0;
+            for (int e = rowStart[k]; e < rowStart[k + 1]; ++e) {
+                double xr = spectrumRe[column[e]];
+                double xi = spectrumIm[column[e]];
+                sumRe += xr * kernelRe[e] - xi * kernelIm[e];
+                sumIm += xr * kernelIm[e] + xi * kernelRe[e];
+            }
+            outRe[k] = sumRe;
+            outIm[k] = sumIm;
+        }
+    }
+
+    /**
+     * Calculates the squared magnitudes of the constant-Q transform of
+     * getFFTSize() samples.
+     *
+     * @param input  Array of at least size offset+getFFTSize() of samples
+     * @param offset Place in input the frame starts at
+     * @param output Array of at least size getBinCount() for the squared
+     *               magnitudes
+     * @throws Exception If the input is shorter than a frame
+     */
+    public void calculatePower(double[] input, int offset, double[] output)
+            throws Exception {
+        calculate(input, offset, binRe, binIm);
+        ComplexArrays.squaredMagnitudes(binRe, binIm, output, bins);
+    }
+}
@@ -0,0 +1,162 @@
+package com.notebook.dsp;
+
+import java.util.Arrays;
+
+/**
+ * FIR filter applied by fast convolution with the overlap-save method.
+ * <p>
+ * The spectrum of the kernel is calculated once. The stream is then cut into
+ * blocks of blockSize new samples which, together with the kernelLength-1
+ * samples before them, are transformed with a real FFT, multiplied by the
+ * kernel's spectrum and transformed back, the last blockSize values of the
+ * result being the filtered block. This costs O(log N) per sample instead of
+ * the O(kernelLength) of direct convolution.
+ * <p>
+ * Samples can be fed in chunks of any size. Since a block can only be
+ * filtered once all of its samples have arrived, the output is the filtered
+ * input delayed by getLatency() samples, the first getLatency() outputs being
+ * zero. Nothing is instantiated on the heap while filtering.
+ */
+public class FFTConvolver {
+
+    private final ArrayFFT fft;
+    private final int fftSize;
+    private final int kernelLength;
+    private final int blockSize;
+
+    /**
+     * Real FFT of the kernel zero padded to fftSize
+     */
+    private final double[] kernelRe;
+    private final double[] kernelIm;
+
+    /**
+     * The kernelLength-1 samples before the current block followed by the
+     * filled part of the block
+     */
+    private final double[] frame;
+    private int filled = 0;
+
+    /**
+     * Inverse transform of the previous block, the filtered samples being
+     * from kernelLength-1 on
+     */
+    private final double[] filtered;
+
+    private final double[] re;
+    private final double[] im;
+
+    /**
+     * Constructor that uses an FFT of the smallest power of two at least
+     * twice the kernel length
+     *
+     * @param kernel Impulse response of the filter
+     */
+    public FFTConvolver(double[] kernel) {
+        this(kernel, Integer.highestOneBit(Math.max(1, 2 * kernel.length - 1)) << 1);
+    }
+
+    /**
+     * @param kernel  Impulse response of the filter
+     * @param fftSize Size of the FFTs, an even number greater than the kernel
+     *                length; larger sizes filter more samples per transform
+     */
+    public FFTConvolver(double[] kernel, int fftSize) {
+        if (kernel.length < 1 || fftSize <= kernel.length
+                || (fftSize & 1) != 0) {
+            throw new IllegalArgumentException("Incorrect size");
+        }
+        this.fftSize = fftSize;
+        kernelLength = kernel.length;
+        blockSize = fftSize - kernelLength + 1;
+
+        fft = new ArrayFFT(fftSize);
+        frame = new double[fftSize];
+        filtered = new double[fftSize];
+        re = new double[fftSize / 2 + 1];
+        im = new double[fftSize / 2 + 1];
+        kernelRe = new double[fftSize / 2 + 1];
+        kernelIm = new double[fftSize / 2 + 1];
+
+        double[] padded = Arrays.copyOf(kernel, fftSize);
+        try {
+            fft.transformReal(padded, 0, fftSize, kernelRe, kernelIm);
+        } catch (Exception e) {
+            // fftSize is even and within the buffer size
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public int getKernelLength() { return kernelLength; }
+    public int getFFTSize() { return fftSize; }
+    public int getBlockSize() { return blockSize; }
+
+    /**
+     * @return Number of samples the output is delayed by
+     */
+    public int getLatency() { return blockSize; }
+
+    /**
+     * Forgets every sample so far, as if no samples had been filtered.
+     */
+    public void reset() {
+        Arrays.fill(frame, 0);
+        Arrays.fill(filtered, 0);
+        filled = 0;
+    }
+
+    /**
+     * Filters N values in place.
+     *
+     * @param vals   Array of at least size offset+N
+     * @param N      Number of values to filter
+     * @param offset Place in vals to start filtering at
+     * @throws Exception If the FFT fails
+     */
+    public void apply(double[] vals, int N, int offset) throws Exception {
+        apply(vals, offset, vals, offset, N);
+    }
+
+    /**
+     * Filters N values of input into output. The two may be the same array.
+     *
+     * @param input     Array of at least size inOffset+N
+     * @param inOffset  Place in input to start reading at
+     * @param output    Array of at least size outOffset+N
+     * @param outOffset Place in output to start writing at
+     * @param N         Number of values to filter
+     * @throws Exception If the FFT fails
+     */
+    public void apply(double[] input, int inOffset,
+                      double[] output, int outOffset, int N)
+            throws Exception {
+        final int history = kernelLength - 1;
+        while (N > 0) {
+            int run = Math.min(N, blockSize - filled);
+            System.arraycopy(input, inOffset, frame, history + filled, run);
+            System.arraycopy(filtered, history + filled, output, outOffset,
+                    run);
+            filled += run;
+            inOffset += run;
+            outOffset += run;
+            N -= run;
+
+            if (filled == blockSize) {
+                filterBlock();
+                filled = 0;
+            }
+        }
+    }
+
+    private void filterBlock() throws Exception {
+        final int history = kernelLength - 1;
+        fft.transformReal(frame, 0, fftSize, re, im);
+
+        // keep the end of this block as the history of the next one
+        System.arraycopy(frame, fftSize - history, frame, 0, history);
+
+        ComplexArrays.multiply(re, im, kernelRe, kernelIm, re, im,
+                fftSize / 2 + 1);
+        fft.inverseTransformReal(re, im, fftSize, filtered, 0);
+    }
+}
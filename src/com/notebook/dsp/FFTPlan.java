@@ -0,0 +1,259 @@
+package com.notebook.dsp;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Everything about an FFT that only depends on its size.
+ * <p>
+ * A plan holds the twiddle factors e^(-2*pi*i*k/N) for one transform size
+ * along with whatever else the algorithm chosen for that size needs:
+ * <ul>
+ * <li>RADIX_2 for powers of two, with the bit-reversal permutation</li>
+ * <li>MIXED_RADIX for sizes that only have factors of 2, 3 and 5, with the
+ * factorization into radix 4, 2, 3 and 5 stages</li>
+ * <li>BLUESTEIN for every other size, with the chirp and the transformed
+ * chirp filter used to turn the transform into a power of two convolution</li>
+ * </ul>
+ * Plans are immutable once
+ * built, so a single plan is shared by every ArrayFFT (and thread) that
+ * transforms that size. Use get(N) to obtain one from the process-wide cache,
+ * which keeps the most recently used sizes and evicts the least recently used
+ * one when it is full.
+ */
+public final class FFTPlan {
+
+    public enum Algorithm { RADIX_2, MIXED_RADIX, BLUESTEIN }
+
+    private static final int DEFAULT_MAX_CACHED_PLANS = 16;
+
+    private static int maxCachedPlans = DEFAULT_MAX_CACHED_PLANS;
+
+    private static final Map<Integer, FFTPlan> cache =
+            new LinkedHashMap<Integer, FFTPlan>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(
+                        Map.Entry<Integer, FFTPlan> eldest) {
+                    return size() > maxCachedPlans;
+                }
+            };
+
+    private final int size;
+    private final Algorithm algorithm;
+
+    /**
+     * cos and sin of -2*pi*k/size at [twiddleOffset + k], for k in
+     * [0, size/2) for RADIX_2 plans and for k in [0, size) for the others.
+     * RADIX_2 plans share these with stageCos and stageSin, their last stage
+     * holding exactly these twiddles from size/2 on.
+     */
+    final double[] cos;
+    final double[] sin;
+    final int twiddleOffset;
+
+    /**
+     * RADIX_2: bitReversed[i] is i with its log2(size) bits reversed
+     */
+    final int[] bitReversed;
+
+    /**
+     * RADIX_2: the twiddles of each stage laid out one after the other, the
+     * stage of half size h having its h twiddles at [h, 2h), so butterflies
+     * read them with unit stride instead of every step-th table entry. The
+     * same arrays as cos and sin.
+     */
+    final double[] stageCos;
+    final double[] stageSin;
+
+    /**
+     * MIXED_RADIX: pairs of the radix of a stage and the size left to
+     * transform after that stage
+     */
+    final int[] factors;
+
+    /**
+     * BLUESTEIN: the chirp e^(-pi*i*k^2/size) for k in [0, size), the power
+     * of two plan the convolution is done with, and the transform of the
+     * conjugate chirp filter already scaled for the inverse transform
+     */
+    final double[] chirpRe;
+    final double[] chirpIm;
+    final FFTPlan convolutionPlan;
+    final double[] filterRe;
+    final double[] filterIm;
+
+    private FFTPlan(int N) {
+        size = N;
+        int[] radixes = factor(N);
+        if (Integer.bitCount(N) == 1) algorithm = Algorithm.RADIX_2;
+        else if (radixes != null) algorithm = Algorithm.MIXED_RADIX;
+        else algorithm = Algorithm.BLUESTEIN;
+
+        // RADIX_2 plans keep their twiddles in the last stage of the stage
+        // tables, so there is only one copy of them
+        int tableSize = algorithm == Algorithm.RADIX_2 ? N / 2 : N;
+        twiddleOffset = algorithm == Algorithm.RADIX_2 ? N / 2 : 0;
+        cos = new double[twiddleOffset + tableSize];
+        sin = new double[twiddleOffset + tableSize];
+        for (int k = 0; k < tableSize; ++k) {
+            double kth = -2 * k * Math.PI / N;
+            cos[twiddleOffset + k] = Math.cos(kth);
+            sin[twiddleOffset + k] = Math.sin(kth);
+        }
+
+        if (algorithm == Algorithm.RADIX_2) {
+            bitReversed = new int[N];
+            int bits = Integer.numberOfTrailingZeros(N);
+            for (int i = 1; i < N; ++i) {
+                bitReversed[i] = Integer.reverse(i) >>> (32 - bits);
+            }
+            stageCos = cos;
+            stageSin = sin;
+            for (int half = 1; half < N / 2; half <<= 1) {
+                int step = N / (2 * half);
+                for (int k = 0; k < half; ++k) {
+                    stageCos[half + k] = cos[twiddleOffset + k * step];
+                    stageSin[half + k] = sin[twiddleOffset + k * step];
+                }
+            }
+        } else {
+            bitReversed = null;
+            stageCos = null;
+            stageSin = null;
+        }
+
+        factors = algorithm == Algorithm.MIXED_RADIX ? radixes : null;
+
+        if (algorithm == Algorithm.BLUESTEIN) {
+            chirpRe = new double[N];
+            chirpIm = new double[N];
+            for (int k = 0; k < N; ++k) {
+                // k^2 mod 2N keeps the angle small and exact for large k
+                long k2 = (long) k * k % (2L * N);
+                double kth = -Math.PI * k2 / N;
+                chirpRe[k] = Math.cos(kth);
+                chirpIm[k] = Math.sin(kth);
+            }
+
+            int M = Integer.highestOneBit(2 * N - 1) << 1;
+            convolutionPlan = getPowerOfTwo(M);
+            filterRe = new double[M];
+            filterIm = new double[M];
+            filterRe[0] = chirpRe[0];
+            filterIm[0] = -chirpIm[0];
+            for (int k = 1; k < N; ++k) {
+                filterRe[k] = filterRe[M - k] = chirpRe[k];
+                filterIm[k] = filterIm[M - k] = -chirpIm[k];
+            }
+            ArrayFFT.radix2(convolutionPlan, filterRe, filterIm);
+            for (int k = 0; k < M; ++k) {
+                filterRe[k] /= M;
+                filterIm[k] /= M;
+            }
+        } else {
+            chirpRe = null;
+            chirpIm = null;
+            convolutionPlan = null;
+            filterRe = null;
+            filterIm = null;
+        }
+    }
+
+    /**
+     * Splits N into radix 4, 2, 3 and 5 stages.
+     *
+     * @return Pairs of radix and size left after the stage, or null if N has
+     *         any other prime factor
+     */
+    private static int[] factor(int N) {
+        int[] buf = new int[64];
+        int count = 0;
+        int n = N;
+        for (int p : new int[]{4, 2, 3, 5}) {
+            while (n % p == 0 && n > 1) {
+                n /= p;
+                buf[count++] = p;
+                buf[count++] = n;
+            }
+        }
+        if (n != 1) return null;
+        int[] ret = new int[count];
+        System.arraycopy(buf, 0, ret, 0, count);
+        return ret;
+    }
+
+    /**
+     * Returns the shared plan for the power of two M.
+     */
+    private static FFTPlan getPowerOfTwo(int M) {
+        try {
+            return get(M);
+        } catch (Exception e) {
+            // M is always a positive power of two here
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the plan for transforms of size N, building and caching it if
+     * it is not cached yet.
+     *
+     * @param N Size of the transform
+     * @return The shared plan for size N
+     * @throws Exception If N is not positive
+     */
+    public static FFTPlan get(int N) throws Exception {
+        if (N < 1) throw new Exception("Incorrect size");
+        synchronized (cache) {
+            FFTPlan plan = cache.get(N);
+            if (plan != null) return plan;
+        }
+
+        // built outside the lock so one large plan doesn't stall everyone
+        FFTPlan plan = new FFTPlan(N);
+        synchronized (cache) {
+            FFTPlan existing = cache.get(N);
+            if (existing != null) return existing;
+            cache.put(N, plan);
+        }
+        return plan;
+    }
+
+    /**
+     * Sets how many plans the process-wide cache holds before it starts
+     * evicting the least recently used ones.
+     *
+     * @param max Maximum number of cached plans, at least 1
+     */
+    public static void setMaxCachedPlans(int max) {
+        if (max < 1) {
+            throw new IllegalArgumentException("Cache must hold a plan");
+        }
+        synchronized (cache) {
+            maxCachedPlans = max;
+            while (cache.size() > maxCachedPlans) {
+                Integer eldest = cache.keySet().iterator().next();
+                cache.remove(eldest);
+            }
+        }
+    }
+
+    public static int getMaxCachedPlans() {
+        synchronized (cache) {
+            return maxCachedPlans;
+        }
+    }
+
+    /**
+     * @param N Size of the transform
+     * @return True if the plan for size N is currently in the cache
+     */
+    public static boolean isCached(int N) {
+        synchronized (cache) {
+            return cache.containsKey(N);
+        }
+    }
+
+    public int getSize() { return size; }
+    public Algorithm getAlgorithm() { return algorithm; }
+}
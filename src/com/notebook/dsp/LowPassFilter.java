@@ -1,24 +1,180 @@
 package com.notebook.dsp;
 
+import java.util.Arrays;
+
 /**
  * Simple low pass filter class with apply methods.
+ * <p>
+ * The apply methods filter a single block on its own, taking its first value
+ * as already filtered. The process method instead streams: it remembers the
+ * last output of every channel between calls, so consecutive blocks of a
+ * stream are filtered as if they were one, and it filters any number of
+ * interleaved channels in one pass.
+ * <p>
+ * Byte and 16-bit PCM are filtered in fixed point without going through
+ * double. The filter state keeps 15 fractional bits, so a slow signal still
+ * moves the output instead of being lost to truncation, and each output is
+ * rounded to the nearest integer and saturated to the range of its type.
+ * Alpha keeps 30 fractional bits, so low cutoffs are not rounded to a coarse
+ * grid; a cutoff so low that alpha rounds to 0 can only be used on doubles.
  */
 public class LowPassFilter {
 
+    /**
+     * Number of fractional bits of the fixed-point state
+     */
+    private static final int FRACTION_BITS = 15;
+    private static final long HALF = 1L << (FRACTION_BITS - 1);
+
+    /**
+     * Number of fractional bits of the fixed-point alpha. A difference of
+     * two 16-bit samples in the state takes at most 32 bits, so their product
+     * stays well within a long.
+     */
+    private static final int ALPHA_BITS = 30;
+    private static final long ALPHA_HALF = 1L << (ALPHA_BITS - 1);
+
     private double mAlpha;
+    private final long mAlphaQ30;
+
+    private final int mChannels;
+
+    /**
+     * Last output of each channel, valid once mPrimed is set
+     */
+    private final double[] mLast;
+    private boolean mPrimed = false;
 
     public LowPassFilter(double timestep, double frequency) {
+        this(timestep, frequency, 1);
+    }
+
+    /**
+     * @param timestep  Time between two samples of a channel
+     * @param frequency Cutoff frequency, high enough for alpha to be at least
+     *                  2^-31 if byte or 16-bit PCM is filtered
+     * @param channels  Number of interleaved channels process is given
+     */
+    public LowPassFilter(double timestep, double frequency, int channels) {
+        if (channels < 1) throw new IllegalArgumentException("Incorrect size");
         double rc = 1.0/(2*Math.PI*frequency);
         mAlpha = timestep / (rc + timestep);
+        mAlphaQ30 = Math.round(mAlpha * (1L << ALPHA_BITS));
+        mChannels = channels;
+        mLast = new double[channels];
     }
 
+    public int getChannels() { return mChannels; }
+
+    /**
+     * Forgets the stream so far, so the next frame given to process starts a
+     * new one.
+     */
+    public void reset() {
+        Arrays.fill(mLast, 0);
+        mPrimed = false;
+    }
+
+    /**
+     * Filters the next frames of a stream of interleaved channels, sample c of
+     * frame f being at index f*channels+c. The first frame after construction
+     * or reset is passed through as is, like the first value of apply.
+     * Input and output may be the same array, even at the same offset.
+     *
+     * @param input     Array of at least size inOffset+frames*channels
+     * @param inOffset  Place in input to start reading at
+     * @param output    Array of at least size outOffset+frames*channels
+     * @param outOffset Place in output to start writing at
+     * @param frames    Number of samples of each channel to filter
+     */
+    public void process(double[] input, int inOffset,
+                        double[] output, int outOffset, int frames) {
+        if (frames <= 0) return;
+        final double[] last = mLast;
+        final double alpha = mAlpha;
+        int f = 0;
+        if (!mPrimed) {
+            System.arraycopy(input, inOffset, last, 0, mChannels);
+            System.arraycopy(input, inOffset, output, outOffset, mChannels);
+            mPrimed = true;
+            f = 1;
+        }
+        // the channels of a frame don't depend on each other, so the inner
+        // loop has no dependency chain
+        for (; f < frames; ++f) {
+            int in = inOffset + f * mChannels;
+            int out = outOffset + f * mChannels;
+            for (int c = 0; c < mChannels; ++c) {
+                double y = last[c] + alpha*(input[in + c] - last[c]);
+                last[c] = y;
+                output[out + c] = y;
+            }
+        }
+    }
+
+    /**
+     * Filters the next frames of a stream in place.
+     *
+     * @param vals   Array of at least size offset+frames*channels
+     * @param frames Number of samples of each channel to filter
+     * @param offset Place in vals to start filtering at
+     */
+    public void process(double[] vals, int frames, int offset) {
+        process(vals, offset, vals, offset, frames);
+    }
+
+    /**
+     * @throws IllegalStateException If the cutoff is too low for alpha to be
+     *         represented in fixed point
+     */
     public void apply(byte[] vals, int N, int offset) {
+        checkFixedPoint();
+        if(N < 1) return;
+        long state = (long)vals[offset] << FRACTION_BITS;
         for(int i = 1; i < N; ++i) {
             int j = i + offset;
-            vals[j] = (byte)(vals[j-1] + mAlpha*(vals[j] - vals[j-1]));
+            state = step(state, vals[j]);
+            vals[j] = (byte)saturate(state, Byte.MIN_VALUE, Byte.MAX_VALUE);
         }
     }
 
+    /**
+     * @throws IllegalStateException If the cutoff is too low for alpha to be
+     *         represented in fixed point
+     */
+    public void apply(short[] vals, int N, int offset) {
+        checkFixedPoint();
+        if(N < 1) return;
+        long state = (long)vals[offset] << FRACTION_BITS;
+        for(int i = 1; i < N; ++i) {
+            int j = i + offset;
+            state = step(state, vals[j]);
+            vals[j] = (short)saturate(state, Short.MIN_VALUE, Short.MAX_VALUE);
+        }
+    }
+
+    private void checkFixedPoint() {
+        if (mAlphaQ30 <= 0) {
+            throw new IllegalStateException("Incorrect frequency");
+        }
+    }
+
+    /**
+     * One step of the filter on a state with FRACTION_BITS fractional bits
+     */
+    private long step(long state, int sample) {
+        long difference = ((long)sample << FRACTION_BITS) - state;
+        return state + ((mAlphaQ30 * difference + ALPHA_HALF) >> ALPHA_BITS);
+    }
+
+    /**
+     * Rounds a fixed-point state to the nearest integer within [min, max]
+     */
+    private static long saturate(long state, long min, long max) {
+        long rounded = (state + HALF) >> FRACTION_BITS;
+        return Math.max(min, Math.min(max, rounded));
+    }
+
     public void apply(double[] vals, int N, int offset) {
         for(int i = 1; i < N; ++i) {
             int j = i + offset;
@@ -27,12 +183,27 @@ public class LowPassFilter {
     }
 
     public void apply(Complex[] vals, int N, int offset) {
-        Complex temp = new Complex(0,0);
+        if(N < 1) return;
+        double lastRe = vals[offset].getReal();
+        double lastIm = vals[offset].getImaginary();
+        for(int i = 1; i < N; ++i) {
+            int j = i + offset;
+            lastRe += mAlpha*(vals[j].getReal() - lastRe);
+            lastIm += mAlpha*(vals[j].getImaginary() - lastIm);
+            vals[j].set(lastRe, lastIm);
+        }
+    }
+
+    public void apply(double[] re, double[] im, int N, int offset) {
+        if(N < 1) return;
+        double lastRe = re[offset];
+        double lastIm = im[offset];
         for(int i = 1; i < N; ++i) {
             int j = i + offset;
-            vals[j].minus(vals[j-1],temp);
-            temp.times(mAlpha,temp);
-            vals[j-1].plus(temp,vals[j]);
+            lastRe += mAlpha*(re[j] - lastRe);
+            lastIm += mAlpha*(im[j] - lastIm);
+            re[j] = lastRe;
+            im[j] = lastIm;
         }
     }
 }
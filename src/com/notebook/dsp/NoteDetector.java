@@ -0,0 +1,194 @@
+package com.notebook.dsp;
+
+/**
+ * Detects the musical note of a stream of byte PCM, frame by frame.
+ * <p>
+ * Every chunk of samples is converted to double and, if a cutoff is set, run
+ * through a LowPassFilter that carries its state from chunk to chunk. The
+ * filtered samples go into an STFT, and for every frame the squared
+ * magnitudes of the bins are searched for their peak with
+ * PeakInterpolator.quadratic. The interpolated bin is turned into a frequency
+ * and from that into the nearest MIDI note and the cents it is off by.
+ * <p>
+ * The detector owns every buffer it uses, so in steady state nothing is
+ * instantiated on the heap and results are handed over as primitives. Like
+ * BufferedFFT, a detector must only be used by one thread at a time.
+ */
+public class NoteDetector {
+
+    /**
+     * Receives the notes detected.
+     */
+    public interface NoteListener {
+        /**
+         * @param frequency Frequency of the peak in Hz
+         * @param note      Nearest MIDI note, 69 being A4
+         * @param cents     Cents the frequency is above note, in [-50, 50]
+         * @param frame     Index of the frame since the start of the stream
+         * @throws Exception To stop processing
+         */
+        void onNote(double frequency, int note, double cents, long frame)
+                throws Exception;
+    }
+
+    private static final String[] NOTE_NAMES = {
+            "C", "C#", "D", "D#", "E", "F", "F#", "G", "G#", "A", "A#", "B"
+    };
+
+    /**
+     * Number of samples converted and filtered at a time
+     */
+    private static final int CHUNK_SIZE = 1024;
+
+    private final double sampleRate;
+    private final int frameSize;
+    private final STFT stft;
+    private final STFT.FrameListener onFrame;
+
+    private LowPassFilter filter;
+    private double minPower = 0;
+
+    private final double[] samples = new double[CHUNK_SIZE];
+    private final double[] power;
+
+    /**
+     * Listener of the process call running, used by onFrame
+     */
+    private NoteListener listener;
+
+    /**
+     * Constructor that uses a Hann window and no low pass filter
+     *
+     * @param sampleRate Samples per second of the stream
+     * @param frameSize  Number of samples in each frame
+     * @param hop        Number of samples between the starts of two frames
+     */
+    public NoteDetector(double sampleRate, int frameSize, int hop) {
+        this(sampleRate, frameSize, hop, Window.HANN);
+    }
+
+    /**
+     * @param sampleRate Samples per second of the stream
+     * @param frameSize  Number of samples in each frame, at least 4 so the
+     *                   spectrum has a bin on each side of a peak
+     * @param hop        Number of samples between the starts of two frames
+     * @param window     Window applied to every frame, or null for none
+     */
+    public NoteDetector(double sampleRate, int frameSize, int hop,
+                        Window window) {
+        if (frameSize < 4) throw new IllegalArgumentException("Incorrect size");
+        this.sampleRate = sampleRate;
+        this.frameSize = frameSize;
+        stft = new STFT(frameSize, hop, window);
+        power = new double[frameSize / 2 + 1];
+        onFrame = (re, im, frame) -> detect(re, im, frame);
+    }
+
+    public double getSampleRate() { return sampleRate; }
+    public int getFrameSize() { return frameSize; }
+    public int getHop() { return stft.getHop(); }
+
+    /**
+     * Sets the cutoff of the low pass filter run over the samples before
+     * they are transformed.
+     *
+     * @param frequency Cutoff frequency in Hz, or 0 for no filter
+     */
+    public void setLowPass(double frequency) {
+        filter = frequency > 0
+                ? new LowPassFilter(1 / sampleRate, frequency) : null;
+    }
+
+    /**
+     * Sets the smallest squared magnitude the peak of a frame must have for
+     * the frame to be reported, to skip silence.
+     *
+     * @param minPower Smallest squared magnitude, 0 to report every frame
+     */
+    public void setMinPower(double minPower) {
+        this.minPower = minPower;
+    }
+
+    /**
+     * Forgets every sample so far, as if no samples had been processed.
+     */
+    public void reset() {
+        stft.reset();
+        if (filter != null) filter.reset();
+    }
+
+    /**
+     * Adds count samples to the stream, calling listener with the note of
+     * every frame completed by them.
+     *
+     * @param input    Array of at least size offset+count of samples
+     * @param offset   Place in input to start reading samples from
+     * @param count    Number of samples to add
+     * @param listener Receives the notes
+     * @throws Exception If the listener throws
+     */
+    public void process(byte[] input, int offset, int count,
+                        NoteListener listener) throws Exception {
+        this.listener = listener;
+        try {
+            while (count > 0) {
+                int run = Math.min(count, CHUNK_SIZE);
+                for (int i = 0; i < run; ++i) {
+                    samples[i] = input[offset + i];
+                }
+                if (filter != null) filter.process(samples, run, 0);
+                stft.process(samples, 0, run, onFrame);
+                offset += run;
+                count -= run;
+            }
+        } finally {
+            this.listener = null;
+        }
+    }
+
+    private void detect(double[] re, double[] im, long frame)
+            throws Exception {
+        ComplexArrays.squaredMagnitudes(re, im, power, power.length);
+        double bin = PeakInterpolator.quadratic(power);
+        int nearest = (int) Math.round(bin);
+        if (power[nearest] < minPower || bin <= 0) return;
+
+        double frequency = bin * sampleRate / frameSize;
+        double midi = frequencyToMidi(frequency);
+        int note = (int) Math.round(midi);
+        listener.onNote(frequency, note, 100 * (midi - note), frame);
+    }
+
+    /**
+     * @param frequency Frequency in Hz
+     * @return MIDI note number of the frequency, fractional if it is between
+     *         notes, 69 being A4 at 440 Hz
+     */
+    public static double frequencyToMidi(double frequency) {
+        return 69 + 12 * Math.log(frequency / 440) / Math.log(2);
+    }
+
+    /**
+     * @param note MIDI note number
+     * @return Frequency of the note in Hz
+     */
+    public static double midiToFrequency(double note) {
+        return 440 * Math.pow(2, (note - 69) / 12);
+    }
+
+    /**
+     * @param note MIDI note number
+     * @return Name of the note without its octave, such as "C#"
+     */
+    public static String noteName(int note) {
+        return NOTE_NAMES[Math.floorMod(note, 12)];
+    }
+
+    /**
+     * @param note MIDI note number
+     * @return Octave of the note, 60 being C4
+     */
+    public static int octave(int note) {
+        return Math.floorDiv(note, 12) - 1;
+    }
+}
@@ -0,0 +1,261 @@
+package com.notebook.dsp;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Spectral analysis of WAV and raw PCM files of any size.
+ * <p>
+ * The file is memory-mapped with FileChannel.map and the frames are
+ * transformed by a BufferedFFT straight from the mapped region, so the samples
+ * are never read into a byte[] and copied again. The operating system pages
+ * the file in as the frames walk through it. A mapping can hold at most 2 GB,
+ * so larger files are mapped in consecutive regions of whole frames.
+ * <p>
+ * Frames are frameSize samples of one channel, hop samples apart, and every
+ * one is handed to an STFT.FrameListener as its first frameSize/2+1 bins.
+ * Wrap a PeakListener with peaks() to get the interpolated peak bin of every
+ * frame instead. Like BufferedFFT, an analyzer only runs one file at a time.
+ */
+public class PCMFileAnalyzer {
+
+    /**
+     * Receives the peak of every frame of an analysis.
+     */
+    public interface PeakListener {
+        /**
+         * @param bin   Bin of the peak of the frame, interpolated between
+         *              bins
+         * @param frame Index of the frame since the start of the file
+         * @throws Exception To stop the analysis
+         */
+        void onPeak(double bin, long frame) throws Exception;
+    }
+
+    /**
+     * Largest region mapped at once
+     */
+    private static final long MAX_MAPPING = Integer.MAX_VALUE;
+
+    private static final int WAVE_FORMAT_PCM = 1;
+    private static final int WAVE_FORMAT_IEEE_FLOAT = 3;
+    private static final int WAVE_FORMAT_EXTENSIBLE = 0xFFFE;
+
+    private final BufferedFFT fft;
+    private final int frameSize;
+    private final int hop;
+
+    private final double[] outRe;
+    private final double[] outIm;
+
+    /**
+     * @param frameSize Number of samples in each frame
+     * @param hop       Number of samples between the starts of two frames
+     */
+    public PCMFileAnalyzer(int frameSize, int hop) {
+        if (frameSize < 1 || hop < 1) {
+            throw new IllegalArgumentException("Incorrect size");
+        }
+        this.frameSize = frameSize;
+        this.hop = hop;
+        fft = new BufferedFFT(frameSize);
+        outRe = new double[frameSize / 2 + 1];
+        outIm = new double[frameSize / 2 + 1];
+    }
+
+    public int getFrameSize() { return frameSize; }
+    public int getHop() { return hop; }
+
+    /**
+     * @param window Window applied to every frame, or null for none
+     */
+    public void setWindow(Window window) {
+        fft.setWindow(window);
+    }
+
+    public Window getWindow() { return fft.getWindow(); }
+
+    /**
+     * Wraps a PeakListener into a FrameListener that finds the peak of the
+     * squared magnitudes of every frame with PeakInterpolator.quadratic.
+     *
+     * @param listener Receives the peaks
+     * @return Listener to pass to analyzeWav or analyzeRaw
+     */
+    public static STFT.FrameListener peaks(final PeakListener listener) {
+        return new STFT.FrameListener() {
+            private double[] magnitudes;
+
+            @Override
+            public void onFrame(double[] re, double[] im, long frame)
+                    throws Exception {
+                if (magnitudes == null || magnitudes.length != re.length) {
+                    magnitudes = new double[re.length];
+                }
+                ComplexArrays.squaredMagnitudes(re, im, magnitudes,
+                        re.length);
+                listener.onPeak(PeakInterpolator.quadratic(magnitudes), frame);
+            }
+        };
+    }
+
+    /**
+     * Analyzes one channel of a WAV file of integer PCM or float samples.
+     *
+     * @param file     WAV file to analyze
+     * @param channel  Channel to analyze, 0 being the first
+     * @param listener Receives every frame
+     * @return Number of frames analyzed
+     * @throws Exception If the file can't be read, isn't a supported WAV
+     *         file, or the listener throws
+     */
+    public long analyzeWav(Path file, int channel,
+                           STFT.FrameListener listener) throws Exception {
+        try (FileChannel fc = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(12)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            readFully(fc, header, 0);
+            if (header.getInt(0) != 0x46464952 || header.getInt(8) != 0x45564157) {
+                throw new Exception("Not a WAV file");
+            }
+            final long riffEnd = 8 + (header.getInt(4) & 0xFFFFFFFFL);
+
+            SampleFormat format = null;
+            int channels = 0;
+            long position = 12;
+            ByteBuffer chunk = ByteBuffer.allocate(40)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            while (position + 8 <= fc.size()) {
+                chunk.clear().limit(8);
+                readFully(fc, chunk, position);
+                int id = chunk.getInt(0);
+                long size = chunk.getInt(4) & 0xFFFFFFFFL;
+                long data = position + 8;
+
+                if (id == 0x20746d66) { // "fmt "
+                    if (size < 16) throw new Exception("Not a WAV file");
+                    chunk.clear().limit((int) Math.min(size, chunk.capacity()));
+                    readFully(fc, chunk, data);
+                    int tag = chunk.getShort(0) & 0xFFFF;
+                    if (tag == WAVE_FORMAT_EXTENSIBLE && size >= 26) {
+                        // the sub format GUID starts with the actual tag
+                        tag = chunk.getShort(24) & 0xFFFF;
+                    }
+                    channels = chunk.getShort(2) & 0xFFFF;
+                    format = wavFormat(tag, chunk.getShort(14) & 0xFFFF);
+                } else if (id == 0x61746164) { // "data"
+                    if (format == null) throw new Exception("Not a WAV file");
+                    // streamed files may leave the size unset as 0xFFFFFFFF,
+                    // or as 0 along with a RIFF size that is unset too or
+                    // ends at the data, in which case the data runs to the
+                    // end; otherwise a size of 0 is an empty chunk followed
+                    // by others
+                    long available = fc.size() - data;
+                    boolean unset = size == 0 && (riffEnd == 8
+                            || riffEnd == 8 + 0xFFFFFFFFL || riffEnd <= data);
+                    long length = unset ? available
+                            : Math.min(size, available);
+                    return analyze(fc, data, length, format,
+                            ByteOrder.LITTLE_ENDIAN, channels, channel,
+                            listener);
+                }
+                position = data + size + (size & 1);
+            }
+            throw new Exception("Not a WAV file");
+        }
+    }
+
+    /**
+     * Analyzes one channel of a raw file of interleaved samples.
+     *
+     * @param file       File to analyze
+     * @param dataOffset Byte offset of the first sample in the file
+     * @param dataLength Number of bytes of samples, or -1 for the rest of the
+     *                   file
+     * @param format     Encoding of the samples
+     * @param order      Byte order of the samples
+     * @param channels   Number of interleaved channels
+     * @param channel    Channel to analyze, 0 being the first
+     * @param listener   Receives every frame
+     * @return Number of frames analyzed
+     * @throws Exception If the file can't be read or the listener throws
+     */
+    public long analyzeRaw(Path file, long dataOffset, long dataLength,
+                           SampleFormat format, ByteOrder order,
+                           int channels, int channel,
+                           STFT.FrameListener listener) throws Exception {
+        try (FileChannel fc = FileChannel.open(file, StandardOpenOption.READ)) {
+            long available = Math.max(0, fc.size() - dataOffset);
+            long length = dataLength < 0 ? available
+                    : Math.min(dataLength, available);
+            return analyze(fc, dataOffset, length, format, order, channels,
+                    channel, listener);
+        }
+    }
+
+    private long analyze(FileChannel fc, long dataOffset, long dataLength,
+                         SampleFormat format, ByteOrder order, int channels,
+                         int channel, STFT.FrameListener listener)
+            throws Exception {
+        if (channel < 0 || channel >= channels) {
+            throw new IllegalArgumentException("Incorrect channel");
+        }
+        final long stride = (long) channels * format.getBytes();
+        final long samples = dataLength / stride;
+        if (samples < frameSize) return 0;
+        final long frames = (samples - frameSize) / hop + 1;
+        final long frameBytes = frameSize * stride;
+        final long hopBytes = hop * stride;
+        if (frameBytes > MAX_MAPPING) throw new Exception("Incorrect size");
+
+        long frame = 0;
+        while (frame < frames) {
+            long regionStart = dataOffset + frame * hopBytes;
+            long regionFrames = Math.min(frames - frame,
+                    (MAX_MAPPING - frameBytes) / hopBytes + 1);
+            long regionLength = (regionFrames - 1) * hopBytes + frameBytes;
+            MappedByteBuffer region = fc.map(FileChannel.MapMode.READ_ONLY,
+                    regionStart, regionLength);
+            region.order(order);
+
+            final int first = channel * format.getBytes();
+            for (long f = 0; f < regionFrames; ++f) {
+                fft.calculateRealFFT(region, (int) (f * hopBytes) + first,
+                        (int) stride, frameSize, format, outRe, outIm);
+                listener.onFrame(outRe, outIm, frame + f);
+            }
+            frame += regionFrames;
+        }
+        return frames;
+    }
+
+    private static SampleFormat wavFormat(int tag, int bits) throws Exception {
+        if (tag == WAVE_FORMAT_PCM) {
+            switch (bits) {
+                case 8: return SampleFormat.PCM_U8;
+                case 16: return SampleFormat.PCM_16;
+                case 24: return SampleFormat.PCM_24;
+                case 32: return SampleFormat.PCM_32;
+            }
+        } else if (tag == WAVE_FORMAT_IEEE_FLOAT) {
+            switch (bits) {
+                case 32: return SampleFormat.FLOAT_32;
+                case 64: return SampleFormat.FLOAT_64;
+            }
+        }
+        throw new Exception("Unsupported WAV format");
+    }
+
+    private static void readFully(FileChannel fc, ByteBuffer buffer,
+                                  long position) throws Exception {
+        while (buffer.hasRemaining()) {
+            int read = fc.read(buffer, position);
+            if (read < 0) throw new Exception("Unexpected end of file");
+            position += read;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.notebook.dsp;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A ParallelFFT object calculates a single large FFT on several cores.
+ * <p>
+ * Power of two transforms are split across a ForkJoinPool: the bit-reversal is
+ * done in parallel ranges, the layers combining blocks of up to the
+ * sequential threshold are done block by block in parallel, and every larger
+ * layer has its butterflies split into parallel ranges. Transforms no larger
+ * than the threshold, and sizes that aren't powers of two, are calculated on
+ * the calling thread the same way ArrayFFT does.
+ * <p>
+ * Like BufferedFFT, a ParallelFFT must only run one transform at a time.
+ */
+public class ParallelFFT {
+
+    public static final int DEFAULT_SEQUENTIAL_THRESHOLD = 1 << 14;
+
+    private final ArrayFFT engine;
+    private final ForkJoinPool pool;
+
+    /**
+     * Number of values below which work is no longer split between threads
+     */
+    private final int threshold;
+
+    /**
+     * Constructor that runs on the common ForkJoinPool with the default
+     * sequential threshold
+     *
+     * @param N Maximum size of expected input
+     */
+    public ParallelFFT(int N) {
+        this(N, DEFAULT_SEQUENTIAL_THRESHOLD, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param N                   Maximum size of expected input
+     * @param sequentialThreshold Number of values below which work is no
+     *                            longer split between threads, rounded down
+     *                            to a power of two of at least 2
+     * @param pool                Pool to run the transform on
+     */
+    public ParallelFFT(int N, int sequentialThreshold, ForkJoinPool pool) {
+        engine = new ArrayFFT(N);
+        this.pool = pool;
+        threshold = Math.max(2, Integer.highestOneBit(sequentialThreshold));
+    }
+
+    public int getBufferSize() { return engine.getBufferSize(); }
+    public int getSequentialThreshold() { return threshold; }
+
+    /**
+     * Calculates the FFT of the first n values of re and im and stores the
+     * result back into them.
+     *
+     * @param re Real parts of the input, replaced by the real parts of the
+     *           result
+     * @param im Imaginary parts of the input, replaced by the imaginary parts
+     *           of the result
+     * @param n  Number of elements to perform the FFT on
+     * @throws Exception If n is greater than the bufferSize of this object
+     */
+    public void transform(double[] re, double[] im, int n) throws Exception {
+        if (n <= threshold || Integer.bitCount(n) != 1) {
+            engine.transform(re, im, n);
+            return;
+        }
+        if (n > engine.getBufferSize()) throw new Exception("Incorrect size");
+        final FFTPlan plan = FFTPlan.get(n);
+
+        pool.invoke(new BitReverseTask(plan, re, im, 0, n, threshold));
+        pool.invoke(new BlockTask(plan, re, im, 0, n, threshold));
+        for (int size = threshold * 2; size <= n; size <<= 1) {
+            pool.invoke(new LayerTask(plan, re, im, size, 0, n / 2,
+                    threshold));
+        }
+    }
+
+    /**
+     * Splits a range in halves until it is no longer than the grain and then
+     * does the work for each piece.
+     */
+    private static abstract class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final FFTPlan plan;
+        final double[] re;
+        final double[] im;
+        final int from;
+        final int to;
+        final int grain;
+
+        RangeTask(FFTPlan plan, double[] re, double[] im,
+                  int from, int to, int grain) {
+            this.plan = plan;
+            this.re = re;
+            this.im = im;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        abstract RangeTask child(int from, int to);
+
+        abstract void run();
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                run();
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(child(from, mid), child(mid, to));
+        }
+    }
+
+    private static class BitReverseTask extends RangeTask {
+        private static final long serialVersionUID = 1L;
+
+        BitReverseTask(FFTPlan plan, double[] re, double[] im,
+                       int from, int to, int grain) {
+            super(plan, re, im, from, to, grain);
+        }
+
+        @Override
+        RangeTask child(int from, int to) {
+            return new BitReverseTask(plan, re, im, from, to, grain);
+        }
+
+        @Override
+        void run() {
+            ArrayFFT.bitReverse(plan, re, im, from, to);
+        }
+    }
+
+    /**
+     * Does every layer up to blocks of grain values, each range of values
+     * being exactly one block.
+     */
+    private static class BlockTask extends RangeTask {
+        private static final long serialVersionUID = 1L;
+
+        BlockTask(FFTPlan plan, double[] re, double[] im,
+                  int from, int to, int grain) {
+            super(plan, re, im, from, to, grain);
+        }
+
+        @Override
+        RangeTask child(int from, int to) {
+            return new BlockTask(plan, re, im, from, to, grain);
+        }
+
+        @Override
+        void run() {
+            for (int size = 2; size <= grain; size <<= 1) {
+                ArrayFFT.layer(plan, re, im, size, from / 2, to / 2);
+            }
+        }
+    }
+
+    /**
+     * Does a range of the butterflies of a single layer.
+     */
+    private static class LayerTask extends RangeTask {
+        private static final long serialVersionUID = 1L;
+
+        final int size;
+
+        LayerTask(FFTPlan plan, double[] re, double[] im,
+                  int size, int from, int to, int grain) {
+            super(plan, re, im, from, to, grain);
+            this.size = size;
+        }
+
+        @Override
+        RangeTask child(int from, int to) {
+            return new LayerTask(plan, re, im, size, from, to, grain);
+        }
+
+        @Override
+        void run() {
+            ArrayFFT.layer(plan, re, im, size, from, to);
+        }
+    }
+}
@@ -43,15 +43,27 @@ public class PeakInterpolator {
      * @return Peak value of the y array
      */
     public static double quadratic(double[] y) {
-        int m = findMaxIndexInclusive(y);
-        double d = (y[m+1]-y[m-1])/(2*(2*y[m]-y[m-1]-y[m+1]));
-        double index = m + d;
+        double index = quadratic(y, findMaxIndexInclusive(y));
 
         if(index < 0) return 0;
         else if(index >= y.length) return y.length-1;
         else return index;
     }
 
+    /**
+     * Finds the vertex of the parabola through a local maximum or minimum
+     * and its two neighbours using quadratic interpolation
+     * @param y Array of values to interpolate within
+     * @param m Index of the extremum, excluding the first and last values
+     * @return Floating index of the vertex, m if the three values are on a
+     *         line
+     */
+    public static double quadratic(double[] y, int m) {
+        double denominator = 2*(2*y[m]-y[m-1]-y[m+1]);
+        if(denominator == 0) return m;
+        return m + (y[m+1]-y[m-1])/denominator;
+    }
+
     /**
      * Finds the peak of the curve using barycentric interpolation
      * @param y Array of values to find the peak of
@@ -62,4 +74,107 @@ public class PeakInterpolator {
         double d = (y[m+1]-y[m-1])/(y[m-1]+y[m]+y[m+1]);
         return m + d;
     }
+
+    /**
+     * Finds the k largest local maxima of the array, k being the size of the
+     * output arrays, and interpolates each one quadratically.
+     * A local maximum is a value greater than the one before it and at least
+     * the one after it, excluding the first and last values. Peaks are kept
+     * greedily from the largest down, a maximum closer than minDistance to a
+     * larger peak that was kept being dropped, so only kept peaks suppress
+     * others. With a minDistance of at most 1 this takes a single pass,
+     * otherwise one pass per peak found.
+     * Nothing is instantiated on the heap.
+     * @param vals Array of values to search for peaks
+     * @param threshold Smallest value a peak may have
+     * @param minDistance Smallest distance in indices between two peaks
+     * @param positions Array the interpolated index of every peak is written to
+     * @param magnitudes Array the interpolated value of every peak is written
+     *                   to, of the same size as positions
+     * @return Number of peaks found, written to the start of the output
+     *         arrays in order of decreasing value
+     */
+    public static int findPeaks(double[] vals, double threshold,
+                                int minDistance, double[] positions,
+                                double[] magnitudes) {
+        final int k = Math.min(positions.length, magnitudes.length);
+        if(k == 0) return 0;
+
+        // positions hold the indices and magnitudes the values of the peaks
+        // kept, sorted by decreasing value
+        final int count = minDistance > 1
+                ? largestApart(vals, threshold, minDistance, k,
+                        positions, magnitudes)
+                : largest(vals, threshold, k, positions, magnitudes);
+
+        for(int p = 0; p < count; ++p) {
+            int m = (int)positions[p];
+            positions[p] = quadratic(vals, m);
+            double d = positions[p] - m;
+            magnitudes[p] = vals[m] + 0.25*(vals[m+1]-vals[m-1])*d;
+        }
+        return count;
+    }
+
+    private static boolean isPeak(double[] vals, int i, double threshold) {
+        double v = vals[i];
+        return v >= threshold && v > vals[i-1] && v >= vals[i+1];
+    }
+
+    /**
+     * Keeps the k largest local maxima in one pass by insertion.
+     */
+    private static int largest(double[] vals, double threshold, int k,
+                               double[] positions, double[] magnitudes) {
+        int count = 0;
+        for(int i = 1; i < vals.length-1; ++i) {
+            if(!isPeak(vals, i, threshold)) continue;
+            double v = vals[i];
+            if(count == k) {
+                if(v <= magnitudes[count-1]) continue;
+                --count;
+            }
+
+            int p = count++;
+            while(p > 0 && magnitudes[p-1] < v) {
+                positions[p] = positions[p-1];
+                magnitudes[p] = magnitudes[p-1];
+                --p;
+            }
+            positions[p] = i;
+            magnitudes[p] = v;
+        }
+        return count;
+    }
+
+    /**
+     * Keeps up to k local maxima at least minDistance apart, each pass
+     * keeping the largest maximum not within minDistance of one already
+     * kept, the kept ones included.
+     */
+    private static int largestApart(double[] vals, double threshold,
+                                    int minDistance, int k,
+                                    double[] positions, double[] magnitudes) {
+        int count = 0;
+        while(count < k) {
+            int best = -1;
+            for(int i = 1; i < vals.length-1; ++i) {
+                if(!isPeak(vals, i, threshold)) continue;
+                if(best >= 0 && vals[i] <= vals[best]) continue;
+                boolean suppressed = false;
+                for(int p = 0; p < count; ++p) {
+                    if(Math.abs(i - positions[p]) < minDistance) {
+                        suppressed = true;
+                        break;
+                    }
+                }
+                if(!suppressed) best = i;
+            }
+            if(best < 0) break;
+            positions[count] = best;
+            magnitudes[count] = vals[best];
+            ++count;
+        }
+        return count;
+    }
 }
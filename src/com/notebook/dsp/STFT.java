@@ -0,0 +1,163 @@
+package com.notebook.dsp;
+
+import java.util.Arrays;
+
+/**
+ * Streaming short-time Fourier transform.
+ * <p>
+ * Samples can be fed in chunks of any size. The last frameSize samples are
+ * kept in a ring buffer, and every time hop new samples have arrived (once the
+ * first frameSize samples have) the FFT of the last frameSize samples is
+ * calculated with a BufferedFFT and handed to a FrameListener. An optional
+ * Window is applied while the frame is copied into the FFT buffer.
+ * <p>
+ * The ring buffer stores every sample twice, frameSize apart, so the last
+ * frameSize samples are always contiguous and are transformed straight from
+ * the ring without unrolling it first. The arrays handed to the listener are
+ * reused for every frame, so memory stays constant however long the stream
+ * is and nothing is instantiated on the heap while processing.
+ */
+public class STFT {
+
+    /**
+     * Receives the frames of an STFT.
+     */
+    public interface FrameListener {
+        /**
+         * Called for every frame. The arrays are reused for the next frame,
+         * so copy anything that's needed after returning.
+         *
+         * @param re    Real parts of the first frameSize/2+1 bins
+         * @param im    Imaginary parts of the first frameSize/2+1 bins
+         * @param frame Index of the frame since the start of the stream
+         * @throws Exception To stop processing
+         */
+        void onFrame(double[] re, double[] im, long frame) throws Exception;
+    }
+
+    private final BufferedFFT fft;
+    private final int frameSize;
+    private final int hop;
+
+    /**
+     * Size 2*frameSize, sample i of the ring being at both i and
+     * i+frameSize
+     */
+    private final double[] ring;
+    private int position = 0;
+    private int untilNextFrame;
+    private long frameIndex = 0;
+
+    private final double[] outRe;
+    private final double[] outIm;
+
+    /**
+     * @param frameSize Number of samples in each frame
+     * @param hop       Number of new samples between the starts of two
+     *                  frames
+     */
+    public STFT(int frameSize, int hop) {
+        this(frameSize, hop, null);
+    }
+
+    /**
+     * @param frameSize Number of samples in each frame
+     * @param hop       Number of new samples between the starts of two
+     *                  frames
+     * @param window    Window applied to every frame, or null for none
+     */
+    public STFT(int frameSize, int hop, Window window) {
+        if (frameSize < 1 || hop < 1) {
+            throw new IllegalArgumentException("Incorrect size");
+        }
+        this.frameSize = frameSize;
+        this.hop = hop;
+        fft = new BufferedFFT(frameSize);
+        fft.setWindow(window);
+        ring = new double[2 * frameSize];
+        outRe = new double[frameSize / 2 + 1];
+        outIm = new double[frameSize / 2 + 1];
+        untilNextFrame = frameSize;
+    }
+
+    public int getFrameSize() { return frameSize; }
+    public int getHop() { return hop; }
+    public int getBinCount() { return frameSize / 2 + 1; }
+
+    /**
+     * Forgets every sample so far, as if no samples had been processed.
+     */
+    public void reset() {
+        Arrays.fill(ring, 0);
+        position = 0;
+        untilNextFrame = frameSize;
+        frameIndex = 0;
+    }
+
+    /**
+     * Adds count samples to the stream, calling listener for every frame that
+     * is completed by them.
+     *
+     * @param input    Array of at least size offset+count of samples
+     * @param offset   Place in input to start reading samples from
+     * @param count    Number of samples to add
+     * @param listener Receives the completed frames
+     * @throws Exception If the listener throws
+     */
+    public void process(byte[] input, int offset, int count,
+                        FrameListener listener) throws Exception {
+        while (count > 0) {
+            int run = nextRun(count);
+            for (int i = 0; i < run; ++i) {
+                double v = input[offset + i];
+                ring[position + i] = v;
+                ring[position + i + frameSize] = v;
+            }
+            offset += run;
+            count -= run;
+            advance(run, listener);
+        }
+    }
+
+    /**
+     * Adds count samples to the stream, calling listener for every frame that
+     * is completed by them.
+     *
+     * @param input    Array of at least size offset+count of samples
+     * @param offset   Place in input to start reading samples from
+     * @param count    Number of samples to add
+     * @param listener Receives the completed frames
+     * @throws Exception If the listener throws
+     */
+    public void process(double[] input, int offset, int count,
+                        FrameListener listener) throws Exception {
+        while (count > 0) {
+            int run = nextRun(count);
+            System.arraycopy(input, offset, ring, position, run);
+            System.arraycopy(input, offset, ring, position + frameSize, run);
+            offset += run;
+            count -= run;
+            advance(run, listener);
+        }
+    }
+
+    /**
+     * Number of samples that can be copied before either the ring wraps or a
+     * frame is completed.
+     */
+    private int nextRun(int count) {
+        return Math.min(count, Math.min(untilNextFrame, frameSize - position));
+    }
+
+    private void advance(int run, FrameListener listener) throws Exception {
+        position += run;
+        if (position == frameSize) position = 0;
+        untilNextFrame -= run;
+        if (untilNextFrame == 0) {
+            untilNextFrame = hop;
+            // the oldest sample is at position, the newest frameSize-1 later
+            fft.calculateRealFFT(ring, frameSize, position, outRe, outIm);
+            listener.onFrame(outRe, outIm, frameIndex++);
+        }
+    }
+}
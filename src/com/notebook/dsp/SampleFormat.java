@@ -0,0 +1,94 @@
+package com.notebook.dsp;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Encoding of the samples in a ByteBuffer.
+ * <p>
+ * Samples are read with the byte order of the buffer, so set it with
+ * ByteBuffer.order before handing the buffer over. Integer samples are read
+ * as their integer value, like the byte[] overloads of BufferedFFT do, and
+ * float samples as is.
+ */
+public enum SampleFormat {
+
+    /** Signed 8-bit PCM */
+    PCM_8(1) {
+        @Override
+        double read(ByteBuffer buffer, int index) {
+            return buffer.get(index);
+        }
+    },
+
+    /** Unsigned 8-bit PCM, as in WAV files, read centered on 0 */
+    PCM_U8(1) {
+        @Override
+        double read(ByteBuffer buffer, int index) {
+            return (buffer.get(index) & 0xFF) - 128;
+        }
+    },
+
+    /** Signed 16-bit PCM */
+    PCM_16(2) {
+        @Override
+        double read(ByteBuffer buffer, int index) {
+            return buffer.getShort(index);
+        }
+    },
+
+    /** Signed 24-bit PCM */
+    PCM_24(3) {
+        @Override
+        double read(ByteBuffer buffer, int index) {
+            int b0 = buffer.get(index) & 0xFF;
+            int b1 = buffer.get(index + 1) & 0xFF;
+            int b2 = buffer.get(index + 2);
+            if (buffer.order() == ByteOrder.LITTLE_ENDIAN) {
+                return (b2 << 16) | (b1 << 8) | b0;
+            }
+            return ((byte) b0 << 16) | (b1 << 8) | (b2 & 0xFF);
+        }
+    },
+
+    /** Signed 32-bit PCM */
+    PCM_32(4) {
+        @Override
+        double read(ByteBuffer buffer, int index) {
+            return buffer.getInt(index);
+        }
+    },
+
+    /** 32-bit IEEE float */
+    FLOAT_32(4) {
+        @Override
+        double read(ByteBuffer buffer, int index) {
+            return buffer.getFloat(index);
+        }
+    },
+
+    /** 64-bit IEEE float */
+    FLOAT_64(8) {
+        @Override
+        double read(ByteBuffer buffer, int index) {
+            return buffer.getDouble(index);
+        }
+    };
+
+    private final int bytes;
+
+    SampleFormat(int bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * @return Number of bytes in one sample
+     */
+    public int getBytes() { return bytes; }
+
+    /**
+     * Reads the sample starting at byte index of buffer without changing the
+     * position of the buffer.
+     */
+    abstract double read(ByteBuffer buffer, int index);
+}
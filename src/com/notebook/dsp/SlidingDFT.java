@@ -0,0 +1,191 @@
+package com.notebook.dsp;
+
+import java.util.Arrays;
+
+/**
+ * Sliding DFT of the last N samples of a stream.
+ * <p>
+ * Instead of recalculating an FFT every time a sample arrives, each bin is
+ * updated from its previous value with the new sample and the sample leaving
+ * the window, which is O(1) per bin per sample. Only the bins asked for are
+ * kept up to date, so following a handful of bins costs a handful of complex
+ * multiplications per sample.
+ * <p>
+ * The bins are the same as those BufferedFFT calculates for the last N
+ * samples. Since every update multiplies by the twiddle factor again, rounding
+ * errors accumulate over a long stream. With a damping factor r slightly
+ * below 1 every update is also multiplied by r, and the leaving sample by r^N,
+ * which makes old errors die out instead at the cost of the bins being a
+ * slightly tapered DFT of the window (sample m of N weighted by r^(N-m)).
+ */
+public class SlidingDFT {
+
+    /**
+     * Damping factor that keeps the accumulated error bounded while only
+     * tapering the oldest sample of a 4096 sample window by about 4%.
+     */
+    public static final double STABLE_DAMPING = 0.99999;
+
+    private final int size;
+    private final int[] bins;
+
+    /**
+     * r*e^(2*pi*i*k/N) for each bin k
+     */
+    private final double[] twiddleRe;
+    private final double[] twiddleIm;
+    private final double dampingN;
+
+    private final double[] re;
+    private final double[] im;
+
+    /**
+     * Last N samples, the oldest being at position
+     */
+    private final double[] window;
+    private int position = 0;
+
+    /**
+     * Constructor that keeps all N bins up to date without damping
+     *
+     * @param N Number of samples in the window
+     */
+    public SlidingDFT(int N) {
+        this(N, allBins(N), 1);
+    }
+
+    /**
+     * @param N       Number of samples in the window
+     * @param bins    Bins to keep up to date, each in [0, N)
+     * @param damping Damping factor r in (0, 1], 1 being an exact sliding DFT
+     *                and STABLE_DAMPING a good choice for long streams
+     */
+    public SlidingDFT(int N, int[] bins, double damping) {
+        if (N < 1 || damping <= 0 || damping > 1) {
+            throw new IllegalArgumentException("Incorrect size");
+        }
+        size = N;
+        this.bins = bins.clone();
+        twiddleRe = new double[bins.length];
+        twiddleIm = new double[bins.length];
+        for (int b = 0; b < bins.length; ++b) {
+            if (bins[b] < 0 || bins[b] >= N) {
+                throw new IllegalArgumentException("Incorrect bin");
+            }
+            double kth = 2 * Math.PI * bins[b] / N;
+            twiddleRe[b] = damping * Math.cos(kth);
+            twiddleIm[b] = damping * Math.sin(kth);
+        }
+        dampingN = Math.pow(damping, N);
+        re = new double[bins.length];
+        im = new double[bins.length];
+        window = new double[N];
+    }
+
+    private static int[] allBins(int N) {
+        int[] bins = new int[N];
+        for (int k = 0; k < N; ++k) bins[k] = k;
+        return bins;
+    }
+
+    public int getSize() { return size; }
+    public int getBinCount() { return bins.length; }
+
+    /**
+     * @param b Index into the bins given to the constructor
+     * @return The DFT bin the b-th value is of
+     */
+    public int getBin(int b) { return bins[b]; }
+
+    /**
+     * Adds a sample to the window, dropping the oldest one, and updates the
+     * bins.
+     *
+     * @param sample New sample
+     */
+    public void update(double sample) {
+        final double delta = sample - dampingN * window[position];
+        window[position] = sample;
+        if (++position == size) position = 0;
+
+        for (int b = 0; b < re.length; ++b) {
+            double r = re[b] + delta;
+            double i = im[b];
+            re[b] = r * twiddleRe[b] - i * twiddleIm[b];
+            im[b] = r * twiddleIm[b] + i * twiddleRe[b];
+        }
+    }
+
+    /**
+     * Adds count samples to the window one after the other.
+     *
+     * @param input  Array of at least size offset+count of samples
+     * @param offset Place in input to start reading samples from
+     * @param count  Number of samples to add
+     */
+    public void update(byte[] input, int offset, int count) {
+        for (int i = 0; i < count; ++i) {
+            update(input[offset + i]);
+        }
+    }
+
+    /**
+     * Adds count samples to the window one after the other.
+     *
+     * @param input  Array of at least size offset+count of samples
+     * @param offset Place in input to start reading samples from
+     * @param count  Number of samples to add
+     */
+    public void update(double[] input, int offset, int count) {
+        for (int i = 0; i < count; ++i) {
+            update(input[offset + i]);
+        }
+    }
+
+    /**
+     * Clears the window to all zeros.
+     */
+    public void reset() {
+        Arrays.fill(window, 0);
+        Arrays.fill(re, 0);
+        Arrays.fill(im, 0);
+        position = 0;
+    }
+
+    public double getReal(int b) { return re[b]; }
+    public double getImaginary(int b) { return im[b]; }
+
+    /**
+     * Copies the current value of every bin to output.
+     * This version instantiates nothing on the heap.
+     *
+     * @param outRe Array of at least size getBinCount() for the real parts
+     * @param outIm Array of at least size getBinCount() for the imaginary parts
+     */
+    public void getSpectrum(double[] outRe, double[] outIm) {
+        System.arraycopy(re, 0, outRe, 0, re.length);
+        System.arraycopy(im, 0, outIm, 0, im.length);
+    }
+
+    /**
+     * Copies the current value of every bin to output.
+     *
+     * @param output Array of at least size getBinCount()
+     */
+    public void getSpectrum(Complex[] output) {
+        for (int b = 0; b < re.length; ++b) {
+            output[b].set(re[b], im[b]);
+        }
+    }
+
+    /**
+     * Copies the squared magnitude of every bin to output.
+     *
+     * @param output Array of at least size getBinCount()
+     */
+    public void getSquaredMagnitudes(double[] output) {
+        for (int b = 0; b < re.length; ++b) {
+            output[b] = re[b] * re[b] + im[b] * im[b];
+        }
+    }
+}
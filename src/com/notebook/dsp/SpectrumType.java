@@ -0,0 +1,45 @@
+package com.notebook.dsp;
+
+/**
+ * Form a spectrum is returned in by the calculateSpectrum methods of
+ * BufferedFFT, for callers that only need the size of every bin.
+ */
+public enum SpectrumType {
+
+    /** |X[k]| */
+    MAGNITUDE,
+
+    /** |X[k]|^2 */
+    POWER,
+
+    /**
+     * 10*log10(|X[k]|^2), bins with a power below MIN_POWER being given
+     * the decibels of MIN_POWER instead of minus infinity
+     */
+    DECIBELS;
+
+    /**
+     * Smallest power converted to decibels, -300 dB
+     */
+    public static final double MIN_POWER = 1e-30;
+
+    /**
+     * Converts powers in [from, to) of values to this form in place.
+     */
+    void fromPower(double[] values, int from, int to) {
+        switch (this) {
+            case MAGNITUDE:
+                for (int k = from; k < to; ++k) {
+                    values[k] = Math.sqrt(values[k]);
+                }
+                break;
+            case DECIBELS:
+                for (int k = from; k < to; ++k) {
+                    values[k] = 10 * Math.log10(Math.max(values[k], MIN_POWER));
+                }
+                break;
+            case POWER:
+                break;
+        }
+    }
+}
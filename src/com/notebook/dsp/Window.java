@@ -0,0 +1,110 @@
+package com.notebook.dsp;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Window function applied to a frame before its FFT.
+ * <p>
+ * The coefficients for each frame size are calculated once and cached, so a
+ * window only costs one multiplication per sample. BufferedFFT, ConcurrentFFT
+ * and STFT apply it while copying their input into the FFT buffer rather than
+ * in a separate pass.
+ * <p>
+ * The built in windows are periodic (the DFT-even form used for spectral
+ * analysis), so a window of size N is the first N values of the symmetric
+ * window of size N+1.
+ */
+public class Window {
+
+    private interface Shape {
+        double value(int i, int N);
+    }
+
+    public static final Window HANN = new Window((i, N) ->
+            0.5 - 0.5 * Math.cos(2 * Math.PI * i / N));
+
+    public static final Window HAMMING = new Window((i, N) ->
+            0.54 - 0.46 * Math.cos(2 * Math.PI * i / N));
+
+    public static final Window BLACKMAN_HARRIS = new Window((i, N) -> {
+        double x = 2 * Math.PI * i / N;
+        return 0.35875 - 0.48829 * Math.cos(x) + 0.14128 * Math.cos(2 * x)
+                - 0.01168 * Math.cos(3 * x);
+    });
+
+    private final Shape shape;
+    private final ConcurrentHashMap<Integer, double[]> cache =
+            new ConcurrentHashMap<>();
+
+    private Window(Shape shape) {
+        this.shape = shape;
+    }
+
+    /**
+     * Kaiser window, larger values of beta giving lower side lobes and a
+     * wider main lobe.
+     *
+     * @param beta Shape parameter, 0 being a rectangular window
+     * @return The window
+     */
+    public static Window kaiser(double beta) {
+        final double denominator = besselI0(beta);
+        return new Window((i, N) -> {
+            double x = 2.0 * i / N - 1;
+            return besselI0(beta * Math.sqrt(1 - x * x)) / denominator;
+        });
+    }
+
+    /**
+     * Window with the given coefficients, only usable for frames of the same
+     * size as the coefficients.
+     *
+     * @param coefficients Value to multiply each sample of a frame by
+     * @return The window
+     */
+    public static Window custom(double[] coefficients) {
+        // no shape, so no other size can be calculated
+        Window window = new Window(null);
+        window.cache.put(coefficients.length, coefficients.clone());
+        return window;
+    }
+
+    /**
+     * Returns the coefficients for frames of N samples, calculating them the
+     * first time N is asked for.
+     * The returned array is shared and must not be modified.
+     *
+     * @param N Size of the frame
+     * @return Array of size N to multiply the samples of a frame by
+     * @throws IllegalArgumentException If this is a custom window of a
+     *         different size
+     */
+    public double[] coefficients(int N) {
+        double[] table = cache.get(N);
+        if (table != null) return table;
+        if (shape == null) throw new IllegalArgumentException("Incorrect size");
+
+        table = new double[N];
+        for (int i = 0; i < N; ++i) {
+            table[i] = shape.value(i, N);
+        }
+        double[] existing = cache.putIfAbsent(N, table);
+        return existing != null ? existing : table;
+    }
+
+    /**
+     * Modified Bessel function of the first kind of order zero, by its power
+     * series.
+     */
+    private static double besselI0(double x) {
+        double sum = 1;
+        double term = 1;
+        double quarterX2 = x * x / 4;
+        for (int k = 1; k < 500; ++k) {
+            term *= quarterX2 / ((double) k * k);
+            sum += term;
+            if (term < sum * 1e-17) break;
+        }
+        return sum;
+    }
+}
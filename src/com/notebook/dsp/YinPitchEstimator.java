@@ -0,0 +1,159 @@
+package com.notebook.dsp;
+
+/**
+ * Estimates the fundamental frequency of a frame with the YIN algorithm.
+ * <p>
+ * Picking the peak of the spectrum gives the strongest harmonic, which is
+ * not the fundamental when a harmonic is louder than it. YIN instead looks
+ * for the shortest lag at which the frame best matches itself: the difference
+ * function d(tau) is calculated with an Autocorrelation in O(N log N),
+ * normalized by its cumulative mean, and the first lag whose normalized
+ * value dips below the threshold is followed down to its local minimum. That
+ * minimum is refined with PeakInterpolator.quadratic and turned into a
+ * frequency. When no lag dips below the threshold the lag with the smallest
+ * normalized difference is used instead, so callers wanting only clearly
+ * periodic frames should check getAperiodicity(); when even that lag is no
+ * better than average, as for silence, 0 is returned.
+ * <p>
+ * Nothing is instantiated on the heap after construction. Like BufferedFFT,
+ * an estimator must only be used by one thread at a time.
+ */
+public class YinPitchEstimator {
+
+    /**
+     * Threshold recommended by the authors of YIN
+     */
+    public static final double DEFAULT_THRESHOLD = 0.1;
+
+    private final double sampleRate;
+    private final int frameSize;
+    private final int window;
+    private final int lags;
+    private final double threshold;
+
+    private final Autocorrelation autocorrelation;
+    private final double[] samples;
+    private final double[] difference;
+    private final double[] normalized;
+
+    private double aperiodicity = 1;
+
+    /**
+     * Constructor that uses the default threshold and looks for frequencies
+     * down to the lowest one half a frame can hold two periods of
+     *
+     * @param sampleRate Samples per second of the frames
+     * @param frameSize  Number of samples in each frame, at least 8
+     */
+    public YinPitchEstimator(double sampleRate, int frameSize) {
+        this(sampleRate, frameSize, 0, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param sampleRate   Samples per second of the frames
+     * @param frameSize    Number of samples in each frame, at least 8
+     * @param minFrequency Lowest frequency to look for, fewer lags being
+     *                     searched and more of the frame compared for higher
+     *                     values; frequencies below what half a frame can
+     *                     hold are not looked for
+     * @param threshold    Largest normalized difference accepted as a
+     *                     period before falling back to the global minimum
+     */
+    public YinPitchEstimator(double sampleRate, int frameSize,
+                             double minFrequency, double threshold) {
+        if (frameSize < 8) throw new IllegalArgumentException("Incorrect size");
+        this.sampleRate = sampleRate;
+        this.frameSize = frameSize;
+        this.threshold = threshold;
+
+        int maxLags = frameSize / 2;
+        lags = minFrequency > 0
+                ? Math.max(4, Math.min(maxLags,
+                        (int) Math.ceil(sampleRate / minFrequency) + 2))
+                : maxLags;
+        window = frameSize - lags + 1;
+
+        autocorrelation = new Autocorrelation(frameSize);
+        samples = new double[frameSize];
+        difference = new double[lags];
+        normalized = new double[lags];
+    }
+
+    public double getSampleRate() { return sampleRate; }
+    public int getFrameSize() { return frameSize; }
+
+    /**
+     * @return Normalized difference at the period of the last estimate, near
+     *         0 for a periodic frame and near 1 for noise
+     */
+    public double getAperiodicity() { return aperiodicity; }
+
+    /**
+     * Estimates the fundamental frequency of frameSize samples.
+     *
+     * @param input  Array of at least size offset+frameSize of samples
+     * @param offset Place in input the frame starts at
+     * @return Fundamental frequency in Hz, or 0 if no lag matches the frame
+     *         better than average, as for silence
+     * @throws Exception If the input is shorter than a frame
+     */
+    public double estimate(byte[] input, int offset) throws Exception {
+        if (input.length - offset < frameSize) {
+            throw new Exception("Incorrect size");
+        }
+        for (int i = 0; i < frameSize; ++i) {
+            samples[i] = input[offset + i];
+        }
+        return estimate(samples, 0);
+    }
+
+    /**
+     * Estimates the fundamental frequency of frameSize samples.
+     *
+     * @param input  Array of at least size offset+frameSize of samples
+     * @param offset Place in input the frame starts at
+     * @return Fundamental frequency in Hz, or 0 if no lag matches the frame
+     *         better than average, as for silence
+     * @throws Exception If the input is shorter than a frame
+     */
+    public double estimate(double[] input, int offset) throws Exception {
+        if (input.length - offset < frameSize) {
+            throw new Exception("Incorrect size");
+        }
+        autocorrelation.difference(input, offset, window, lags, difference);
+
+        // cumulative mean normalized difference
+        normalized[0] = 1;
+        double sum = 0;
+        for (int tau = 1; tau < lags; ++tau) {
+            sum += difference[tau];
+            normalized[tau] = sum == 0 ? 1 : difference[tau] * tau / sum;
+        }
+
+        // normalized[1] is exactly 1, and lag 1 is skipped because its only
+        // left neighbour is the trivial d(0) = 0, leaving nothing to
+        // interpolate with; the last lag has no right neighbour
+        int period = -1;
+        for (int tau = 2; tau < lags - 1; ++tau) {
+            if (normalized[tau] < threshold) {
+                while (tau + 1 < lags - 1
+                        && normalized[tau + 1] < normalized[tau]) {
+                    ++tau;
+                }
+                period = tau;
+                break;
+            }
+        }
+        if (period < 0) {
+            period = 2;
+            for (int tau = 3; tau < lags - 1; ++tau) {
+                if (normalized[tau] < normalized[period]) period = tau;
+            }
+        }
+
+        // silence, or a frame no lag matches better than average
+        aperiodicity = normalized[period];
+        if (aperiodicity >= 1) return 0;
+        return sampleRate / PeakInterpolator.quadratic(difference, period);
+    }
+}
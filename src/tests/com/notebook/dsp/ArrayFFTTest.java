@@ -0,0 +1,215 @@
+package tests.com.notebook.dsp;
+
+import com.notebook.dsp.ArrayFFT;
+import com.notebook.dsp.BufferedFFT;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ArrayFFTTest {
+
+    private final double doublePrecision = 0.000001;
+
+    /**
+     * Straightforward O(N^2) DFT to compare against
+     */
+    private static void dft(double[] re, double[] im,
+                            double[] outRe, double[] outIm) {
+        int n = re.length;
+        for (int k = 0; k < n; ++k) {
+            double sr = 0, si = 0;
+            for (int t = 0; t < n; ++t) {
+                double th = -2 * Math.PI * ((long) k * t % n) / n;
+                sr += re[t] * Math.cos(th) - im[t] * Math.sin(th);
+                si += re[t] * Math.sin(th) + im[t] * Math.cos(th);
+            }
+            outRe[k] = sr;
+            outIm[k] = si;
+        }
+    }
+
+    @Test
+    public void testTransform_allReal() throws Exception {
+        double[] re = new double[]{1, 8, 3, 2};
+        double[] im = new double[4];
+
+        ArrayFFT fft = new ArrayFFT(4);
+        fft.transform(re, im, 4);
+
+        assertArrayEquals(new double[]{14, -2, -6, -2}, re, doublePrecision);
+        assertArrayEquals(new double[]{0, -6, 0, 6}, im, doublePrecision);
+    }
+
+    @Test
+    public void testTransform_mix() throws Exception {
+        double[] re = new double[]{1, 3, 3, 6};
+        double[] im = new double[]{1, 0, 3, 0};
+
+        ArrayFFT fft = new ArrayFFT(4);
+        fft.transform(re, im, 4);
+
+        assertArrayEquals(new double[]{13, -2, -5, -2}, re, doublePrecision);
+        assertArrayEquals(new double[]{4, 1, 4, -5}, im, doublePrecision);
+    }
+
+    @Test
+    public void testTransform_matchesDFT() throws Exception {
+        Random random = new Random(7);
+        ArrayFFT fft = new ArrayFFT(256);
+
+        for (int n = 1; n <= 256; n *= 2) {
+            double[] re = new double[n];
+            double[] im = new double[n];
+            for (int i = 0; i < n; ++i) {
+                re[i] = random.nextDouble() - 0.5;
+                im[i] = random.nextDouble() - 0.5;
+            }
+            double[] expectedRe = new double[n];
+            double[] expectedIm = new double[n];
+            dft(re, im, expectedRe, expectedIm);
+
+            fft.transform(re, im, n);
+
+            assertArrayEquals(expectedRe, re, doublePrecision);
+            assertArrayEquals(expectedIm, im, doublePrecision);
+        }
+    }
+
+    @Test
+    public void testTransform_anySizeMatchesDFT() throws Exception {
+        Random random = new Random(17);
+        ArrayFFT fft = new ArrayFFT(1000);
+        int[] sizes = new int[]{3, 5, 6, 7, 9, 10, 11, 12, 13, 15, 25, 27,
+                60, 97, 100, 194, 480, 960, 1000};
+
+        for (int n : sizes) {
+            double[] re = new double[n];
+            double[] im = new double[n];
+            for (int i = 0; i < n; ++i) {
+                re[i] = random.nextDouble() - 0.5;
+                im[i] = random.nextDouble() - 0.5;
+            }
+            double[] expectedRe = new double[n];
+            double[] expectedIm = new double[n];
+            dft(re, im, expectedRe, expectedIm);
+
+            fft.transform(re, im, n);
+
+            assertArrayEquals(expectedRe, re, doublePrecision);
+            assertArrayEquals(expectedIm, im, doublePrecision);
+        }
+    }
+
+    @Test
+    public void testTransform_reused() throws Exception {
+        ArrayFFT fft = new ArrayFFT(8);
+        for (int i = 0; i < 3; ++i) {
+            double[] re = new double[]{1, 8, 3, 2};
+            double[] im = new double[4];
+            fft.transform(re, im, 4);
+            assertArrayEquals(new double[]{14, -2, -6, -2}, re, doublePrecision);
+            assertArrayEquals(new double[]{0, -6, 0, 6}, im, doublePrecision);
+        }
+    }
+
+    @Test(expected = Exception.class)
+    public void testTransform_tooLarge() throws Exception {
+        ArrayFFT fft = new ArrayFFT(4);
+        fft.transform(new double[8], new double[8], 8);
+    }
+
+    @Test
+    public void testBufferedFFT_fromArrays() throws Exception {
+        double[] re = new double[]{0, 0, 1, 8, 3, 2};
+        double[] im = new double[6];
+        double[] outRe = new double[4];
+        double[] outIm = new double[4];
+
+        BufferedFFT bufferedFFT = new BufferedFFT(4);
+        bufferedFFT.calculateFFT(re, im, 4, 2, outRe, outIm);
+
+        assertArrayEquals(new double[]{14, -2, -6, -2}, outRe, doublePrecision);
+        assertArrayEquals(new double[]{0, -6, 0, 6}, outIm, doublePrecision);
+        assertArrayEquals(new double[]{0, 0, 1, 8, 3, 2}, re, doublePrecision);
+    }
+
+    @Test
+    public void testTransformReal_matchesComplex() throws Exception {
+        Random random = new Random(11);
+        ArrayFFT fft = new ArrayFFT(128);
+
+        for (int n = 1; n <= 128; n *= 2) {
+            double[] input = new double[n + 3];
+            for (int i = 0; i < input.length; ++i) {
+                input[i] = random.nextDouble() - 0.5;
+            }
+            double[] re = new double[n];
+            double[] im = new double[n];
+            System.arraycopy(input, 3, re, 0, n);
+            fft.transform(re, im, n);
+
+            double[] outRe = new double[n / 2 + 1];
+            double[] outIm = new double[n / 2 + 1];
+            fft.transformReal(input, 3, n, outRe, outIm);
+
+            for (int k = 0; k <= n / 2; ++k) {
+                assertEquals(re[k % n], outRe[k], doublePrecision);
+                assertEquals(im[k % n], outIm[k], doublePrecision);
+            }
+        }
+    }
+
+    @Test
+    public void testTransformReal_evenSizes() throws Exception {
+        Random random = new Random(19);
+        ArrayFFT fft = new ArrayFFT(960);
+
+        for (int n : new int[]{6, 14, 480, 960}) {
+            double[] input = new double[n];
+            for (int i = 0; i < n; ++i) {
+                input[i] = random.nextDouble() - 0.5;
+            }
+            double[] re = new double[n];
+            double[] im = new double[n];
+            System.arraycopy(input, 0, re, 0, n);
+            fft.transform(re, im, n);
+
+            double[] outRe = new double[n / 2 + 1];
+            double[] outIm = new double[n / 2 + 1];
+            fft.transformReal(input, 0, n, outRe, outIm);
+            for (int k = 0; k <= n / 2; ++k) {
+                assertEquals(re[k], outRe[k], doublePrecision);
+                assertEquals(im[k], outIm[k], doublePrecision);
+            }
+
+            double[] actual = new double[n];
+            fft.inverseTransformReal(outRe, outIm, n, actual, 0);
+            assertArrayEquals(input, actual, doublePrecision);
+        }
+    }
+
+    @Test
+    public void testInverseTransformReal_roundTrip() throws Exception {
+        Random random = new Random(13);
+        ArrayFFT fft = new ArrayFFT(64);
+
+        for (int n = 1; n <= 64; n *= 2) {
+            double[] input = new double[n];
+            for (int i = 0; i < n; ++i) {
+                input[i] = random.nextDouble() - 0.5;
+            }
+            double[] re = new double[n / 2 + 1];
+            double[] im = new double[n / 2 + 1];
+            fft.transformReal(input, 0, n, re, im);
+
+            double[] actual = new double[n + 2];
+            fft.inverseTransformReal(re, im, n, actual, 2);
+
+            for (int i = 0; i < n; ++i) {
+                assertEquals(input[i], actual[i + 2], doublePrecision);
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package tests.com.notebook.dsp;
+
+import com.notebook.dsp.Autocorrelation;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class AutocorrelationTest {
+
+    private final double doublePrecision = 0.000001;
+
+    private static double[] random(int length, long seed) {
+        Random random = new Random(seed);
+        double[] vals = new double[length];
+        for (int i = 0; i < length; ++i) vals[i] = random.nextDouble() - 0.5;
+        return vals;
+    }
+
+    @Test
+    public void testMatchesDirectAutocorrelation() throws Exception {
+        final int n = 100;
+        double[] input = random(n + 4, 1);
+        double[] actual = new double[n];
+
+        new Autocorrelation(n).calculate(input, 4, n, n, actual);
+
+        for (int tau = 0; tau < n; ++tau) {
+            double expected = 0;
+            for (int j = 0; j + tau < n; ++j) {
+                expected += input[4 + j] * input[4 + j + tau];
+            }
+            assertEquals(expected, actual[tau], doublePrecision);
+        }
+    }
+
+    @Test
+    public void testMatchesDirectDifference() throws Exception {
+        final int window = 70;
+        final int lags = 31;
+        double[] input = random(window + lags + 1, 2);
+        double[] actual = new double[lags];
+
+        new Autocorrelation(128).difference(input, 2, window, lags, actual);
+
+        for (int tau = 0; tau < lags; ++tau) {
+            double expected = 0;
+            for (int j = 0; j < window; ++j) {
+                double d = input[2 + j] - input[2 + j + tau];
+                expected += d * d;
+            }
+            assertEquals(expected, actual[tau], doublePrecision);
+        }
+    }
+
+    @Test(expected = Exception.class)
+    public void testTooLong() throws Exception {
+        new Autocorrelation(16).difference(new double[32], 0, 10, 8, new double[8]);
+    }
+}
@@ -0,0 +1,104 @@
+package tests.com.notebook.dsp;
+
+import com.notebook.dsp.BiquadFilter;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BiquadFilterTest {
+
+    private final double doublePrecision = 0.000001;
+    private final double timestep = 1.0 / 8000;
+
+    private static double[] random(int length, long seed) {
+        Random random = new Random(seed);
+        double[] vals = new double[length];
+        for (int i = 0; i < length; ++i) vals[i] = random.nextDouble() - 0.5;
+        return vals;
+    }
+
+    private double[] tone(double frequency, int length) {
+        double[] vals = new double[length];
+        for (int i = 0; i < length; ++i) {
+            vals[i] = Math.sin(2 * Math.PI * frequency * i * timestep);
+        }
+        return vals;
+    }
+
+    private static double peak(double[] vals, int from) {
+        double max = 0;
+        for (int i = from; i < vals.length; ++i) {
+            max = Math.max(max, Math.abs(vals[i]));
+        }
+        return max;
+    }
+
+    @Test
+    public void testCascadeMatchesStages() {
+        double[] input = random(500, 1);
+
+        BiquadFilter low = BiquadFilter.lowPass(timestep, 1000,
+                BiquadFilter.BUTTERWORTH_Q, 1);
+        BiquadFilter notch = BiquadFilter.notch(timestep, 60, 5, 1);
+        double[] expected = new double[input.length];
+        low.process(input, 0, expected, 0, input.length);
+        notch.process(expected, expected.length, 0);
+
+        BiquadFilter cascade = BiquadFilter.cascade(low, notch);
+        assertEquals(2, cascade.getSections());
+        double[] actual = new double[input.length];
+        cascade.process(input, 0, actual, 0, 200);
+        cascade.process(input, 200, actual, 200, 300);
+
+        assertArrayEquals(expected, actual, doublePrecision);
+    }
+
+    @Test
+    public void testLowPass() {
+        BiquadFilter filter = BiquadFilter.lowPass(timestep, 500,
+                BiquadFilter.BUTTERWORTH_Q, 2);
+
+        double[] dc = new double[2000];
+        Arrays.fill(dc, 1);
+        filter.process(dc, dc.length, 0);
+        assertEquals(1, dc[dc.length - 1], doublePrecision);
+
+        filter.reset();
+        double[] high = tone(3000, 2000);
+        filter.process(high, high.length, 0);
+        assertTrue(peak(high, 1000) < 0.01);
+    }
+
+    @Test
+    public void testHighPass() {
+        BiquadFilter filter = BiquadFilter.highPass(timestep, 500,
+                BiquadFilter.BUTTERWORTH_Q, 2);
+
+        double[] dc = new double[2000];
+        Arrays.fill(dc, 1);
+        filter.process(dc, dc.length, 0);
+        assertEquals(0, dc[dc.length - 1], doublePrecision);
+
+        filter.reset();
+        double[] high = tone(3000, 2000);
+        filter.process(high, high.length, 0);
+        assertEquals(1, peak(high, 1000), 0.05);
+    }
+
+    @Test
+    public void testBandPassAndNotch() {
+        double[] center = tone(1000, 4000);
+        double[] passed = new double[center.length];
+        BiquadFilter.bandPass(timestep, 1000, 2, 1)
+                .process(center, 0, passed, 0, center.length);
+        assertEquals(1, peak(passed, 2000), 0.01);
+
+        double[] removed = new double[center.length];
+        BiquadFilter.notch(timestep, 1000, 2, 1)
+                .process(center, 0, removed, 0, center.length);
+        assertEquals(0, peak(removed, 2000), 0.01);
+    }
+}
@@ -3,8 +3,14 @@ package tests.com.notebook.dsp;
 import com.notebook.dsp.BufferedFFT;
 import com.notebook.dsp.Complex;
 import com.notebook.dsp.BufferChunk;
+import com.notebook.dsp.SampleFormat;
+import com.notebook.dsp.SpectrumType;
+import com.notebook.dsp.Window;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
 import java.util.Arrays;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -189,6 +195,149 @@ public class BufferedFFTTest {
         assertTrue(Arrays.equals(expected, actual));
     }
 
+    @Test
+    public void testRealFFT_fromBytes() throws Exception {
+
+        byte[] input = new byte[]{0,1,8,3,2};
+
+        Complex[] expected = new Complex[3];
+        expected[0] = new Complex(14,0);
+        expected[1] = new Complex(-2,-6);
+        expected[2] = new Complex(-6,0);
+
+        Complex[] actual = new Complex[3];
+        for(int i = 0; i < 3; ++i) actual[i] = new Complex(0,0);
+
+        BufferedFFT bufferedFFT = new BufferedFFT(4);
+        bufferedFFT.calculateRealFFT(input,4,1,actual);
+
+        assertTrue(Arrays.equals(expected, actual));
+    }
+
+    @Test
+    public void testInverseRealFFT() throws Exception {
+
+        double[] re = new double[]{14,-2,-6};
+        double[] im = new double[]{0,-6,0};
+
+        double[] actual = new double[4];
+
+        BufferedFFT bufferedFFT = new BufferedFFT(4);
+        bufferedFFT.calculateInverseRealFFT(re,im,4,actual);
+
+        assertArrayEquals(new double[]{1,8,3,2}, actual, 0.0000001);
+    }
+
+    @Test
+    public void testFFT_fromBytesOddSize() throws Exception {
+
+        byte[] input = new byte[]{1,8,3};
+
+        Complex[] expected = new Complex[3];
+        expected[0] = new Complex(12,0);
+        expected[1] = new Complex(-4.5,-4.330127018922193);
+        expected[2] = new Complex(-4.5,4.330127018922193);
+
+        BufferedFFT bufferedFFT = new BufferedFFT(input.length);
+        Complex[] actual = bufferedFFT.calculateFFT(input,input.length,0);
+
+        assertTrue(Arrays.equals(expected, actual));
+    }
+
+    @Test
+    public void testInverseRealFFT_oddSize() throws Exception {
+
+        double[] re = new double[]{12,-4.5};
+        double[] im = new double[]{0,-4.330127018922193};
+
+        double[] actual = new double[3];
+
+        BufferedFFT bufferedFFT = new BufferedFFT(3);
+        bufferedFFT.calculateInverseRealFFT(re,im,3,actual);
+
+        assertArrayEquals(new double[]{1,8,3}, actual, 0.0000001);
+    }
+
+    @Test
+    public void testFFTs_matchesSingleFrames() throws Exception {
+
+        byte[] input = new byte[37];
+        for(int i = 0; i < input.length; ++i) input[i] = (byte)(i * 37 % 23 - 11);
+
+        for(int n : new int[]{8, 9}) {
+            int hop = 3;
+            int frames = (input.length - 1 - n) / hop + 1;
+            int bins = n / 2 + 1;
+            double[] outRe = new double[frames * bins];
+            double[] outIm = new double[frames * bins];
+
+            BufferedFFT bufferedFFT = new BufferedFFT(n);
+            bufferedFFT.calculateFFTs(input, 1, n, hop, frames, outRe, outIm);
+
+            for(int f = 0; f < frames; ++f) {
+                Complex[] expected = bufferedFFT.calculateFFT(input, n, 1 + f * hop);
+                for(int k = 0; k < bins; ++k) {
+                    assertEquals(expected[k], new Complex(outRe[f * bins + k], outIm[f * bins + k]));
+                }
+            }
+        }
+    }
+
+    @Test(expected = Exception.class)
+    public void testFFTs_framesPastInput() throws Exception {
+        BufferedFFT bufferedFFT = new BufferedFFT(4);
+        bufferedFFT.calculateFFTs(new byte[10], 0, 4, 4, 3, new double[9], new double[9]);
+    }
+
+    @Test
+    public void testFFT_windowed() throws Exception {
+
+        byte[] input = new byte[]{4,8,3,2};
+
+        // Hann of size 4 is {0, 0.5, 1, 0.5}, so the input becomes {0,4,3,1}
+        Complex[] expected = new Complex[4];
+        expected[0] = new Complex(8,0);
+        expected[1] = new Complex(-3,-3);
+        expected[2] = new Complex(-2,0);
+        expected[3] = new Complex(-3,3);
+
+        BufferedFFT bufferedFFT = new BufferedFFT(input.length);
+        bufferedFFT.setWindow(Window.HANN);
+        Complex[] actual = bufferedFFT.calculateFFT(input,input.length,0);
+
+        assertTrue(Arrays.equals(expected, actual));
+
+        double[] re = new double[3];
+        double[] im = new double[3];
+        bufferedFFT.calculateRealFFT(new double[]{4,8,3,2},4,0,re,im);
+        assertArrayEquals(new double[]{8,-3,-2}, re, 0.0000001);
+        assertArrayEquals(new double[]{0,-3,0}, im, 0.0000001);
+    }
+
+    @Test
+    public void testInverseFFT() throws Exception {
+
+        Complex[] input = new Complex[4];
+        input[0] = new Complex(13,4);
+        input[1] = new Complex(-2,1);
+        input[2] = new Complex(-5,4);
+        input[3] = new Complex(-2,-5);
+
+        Complex[] expected = new Complex[4];
+        expected[0] = new Complex(1,1);
+        expected[1] = new Complex(3,0);
+        expected[2] = new Complex(3,3);
+        expected[3] = new Complex(6,0);
+
+        Complex[] actual = new Complex[4];
+        for(int i = 0; i < 4; ++i) actual[i] = new Complex(0,0);
+
+        BufferedFFT bufferedFFT = new BufferedFFT(input.length);
+        bufferedFFT.calculateInverseFFT(input, actual);
+
+        assertTrue(Arrays.equals(expected, actual));
+    }
+
     @Test
     public void testFFTCallable() throws Exception {
 
@@ -297,4 +446,119 @@ public class BufferedFFTTest {
         assertTrue(Arrays.equals(expected, futureActual1.get()));
         assertTrue(Arrays.equals(expected, futureActual2.get()));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testByteBufferInput() throws Exception {
+        final int n = 10;
+        double[] samples = new double[]{3, -7, 100, 0, -32768, 32767, 5, 1, -2, 9};
+
+        ByteBuffer input = ByteBuffer.allocateDirect(3 + 2 * n)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < n; ++i) {
+            input.putShort(3 + 2 * i, (short) samples[i]);
+        }
+
+        BufferedFFT bufferedFFT = new BufferedFFT(n);
+        double[] expectedRe = new double[n / 2 + 1];
+        double[] expectedIm = new double[n / 2 + 1];
+        bufferedFFT.calculateRealFFT(samples, n, 0, expectedRe, expectedIm);
+
+        double[] actualRe = new double[n / 2 + 1];
+        double[] actualIm = new double[n / 2 + 1];
+        bufferedFFT.calculateRealFFT(input, 3, n, SampleFormat.PCM_16,
+                actualRe, actualIm);
+
+        assertArrayEquals(expectedRe, actualRe, 0.000001);
+        assertArrayEquals(expectedIm, actualIm, 0.000001);
+        assertEquals(0, input.position());
+    }
+
+    @Test
+    public void testByteBufferToDoubleBuffer() throws Exception {
+        final int n = 5;
+        final int frames = 2;
+        double[] samples = new double[]{0.5, -1.25, 2, 3.5, -4, 1, 0, -0.5, 7, 2.25};
+
+        ByteBuffer input = ByteBuffer.allocateDirect(4 * samples.length)
+                .order(ByteOrder.BIG_ENDIAN);
+        for (int i = 0; i < samples.length; ++i) {
+            input.putFloat(4 * i, (float) samples[i]);
+        }
+
+        BufferedFFT bufferedFFT = new BufferedFFT(n);
+        DoubleBuffer output = ByteBuffer.allocateDirect(8 * frames * (n + 1))
+                .asDoubleBuffer();
+        for (int f = 0; f < frames; ++f) {
+            bufferedFFT.calculateRealFFT(input, 4 * n * f, n,
+                    SampleFormat.FLOAT_32, output);
+        }
+        assertEquals(frames * (n / 2 + 1) * 2, output.position());
+
+        double[] re = new double[n / 2 + 1];
+        double[] im = new double[n / 2 + 1];
+        for (int f = 0; f < frames; ++f) {
+            bufferedFFT.calculateRealFFT(samples, n, n * f, re, im);
+            for (int k = 0; k <= n / 2; ++k) {
+                int index = 2 * ((n / 2 + 1) * f + k);
+                assertEquals(re[k], output.get(index), 0.000001);
+                assertEquals(im[k], output.get(index + 1), 0.000001);
+            }
+        }
+    }
+
+    @Test
+    public void testSpectrum() throws Exception {
+        for (int n : new int[]{16, 15, 1}) {
+            byte[] input = new byte[n + 2];
+            for (int i = 0; i < input.length; ++i) {
+                input[i] = (byte) (i * 37 % 23 - 11);
+            }
+
+            BufferedFFT bufferedFFT = new BufferedFFT(n);
+            Complex[] expected = bufferedFFT.calculateFFT(input, n, 2);
+
+            double[] power = new double[n];
+            double[] magnitude = new double[n];
+            double[] decibels = new double[n / 2 + 1];
+            bufferedFFT.calculateSpectrum(input, n, 2, SpectrumType.POWER,
+                    power, true);
+            bufferedFFT.calculateSpectrum(input, n, 2,
+                    SpectrumType.MAGNITUDE, magnitude, true);
+            bufferedFFT.calculateSpectrum(input, n, 2,
+                    SpectrumType.DECIBELS, decibels, false);
+
+            for (int k = 0; k < n; ++k) {
+                double squared = expected[k].squaredMag();
+                assertEquals(squared, power[k], 0.000001);
+                assertEquals(Math.sqrt(squared), magnitude[k], 0.000001);
+                if (k <= n / 2) {
+                    assertEquals(10 * Math.log10(Math.max(squared,
+                            SpectrumType.MIN_POWER)), decibels[k],
+                            0.000001);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSpectrumOfDoublesAndSilence() throws Exception {
+        BufferedFFT bufferedFFT = new BufferedFFT(8);
+        bufferedFFT.setWindow(Window.HANN);
+        double[] input = new double[]{1, 2, 3, 4, 5, 6, 7, 8};
+
+        double[] re = new double[5];
+        double[] im = new double[5];
+        bufferedFFT.calculateRealFFT(input, 8, 0, re, im);
+        double[] power = new double[5];
+        bufferedFFT.calculateSpectrum(input, 8, 0, SpectrumType.POWER,
+                power, false);
+        for (int k = 0; k < 5; ++k) {
+            assertEquals(re[k] * re[k] + im[k] * im[k], power[k], 0.000001);
+        }
+
+        double[] decibels = new double[5];
+        bufferedFFT.calculateSpectrum(new double[8], 8, 0,
+                SpectrumType.DECIBELS, decibels, false);
+        for (double d : decibels) assertEquals(-300, d, 0.000001);
+    }
+}
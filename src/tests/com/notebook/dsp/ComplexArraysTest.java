@@ -0,0 +1,67 @@
+package tests.com.notebook.dsp;
+
+import com.notebook.dsp.Complex;
+import com.notebook.dsp.ComplexArrays;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ComplexArraysTest {
+
+    private final double doublePrecision = 0.000001;
+
+    private final double[] aRe = new double[]{1, -2, 3.5};
+    private final double[] aIm = new double[]{2, 0.5, -1};
+    private final double[] bRe = new double[]{-3, 4, 0};
+    private final double[] bIm = new double[]{1, -1, 2};
+
+    @Test
+    public void testMultiply() {
+        double[] outRe = new double[3];
+        double[] outIm = new double[3];
+        ComplexArrays.multiply(aRe, aIm, bRe, bIm, outRe, outIm, 3);
+
+        Complex product = new Complex(0, 0);
+        for (int i = 0; i < 3; ++i) {
+            new Complex(aRe[i], aIm[i]).times(new Complex(bRe[i], bIm[i]),
+                    product);
+            assertEquals(product.getReal(), outRe[i], doublePrecision);
+            assertEquals(product.getImaginary(), outIm[i], doublePrecision);
+        }
+    }
+
+    @Test
+    public void testMultiplyConjugateInPlace() {
+        double[] re = aRe.clone();
+        double[] im = aIm.clone();
+        ComplexArrays.multiplyConjugate(re, im, bRe, bIm, re, im, 3);
+
+        Complex product = new Complex(0, 0);
+        for (int i = 0; i < 3; ++i) {
+            new Complex(aRe[i], aIm[i]).times(new Complex(bRe[i], -bIm[i]),
+                    product);
+            assertEquals(product.getReal(), re[i], doublePrecision);
+            assertEquals(product.getImaginary(), im[i], doublePrecision);
+        }
+    }
+
+    @Test
+    public void testAddSubtractScale() {
+        double[] outRe = new double[3];
+        double[] outIm = new double[3];
+
+        ComplexArrays.add(aRe, aIm, bRe, bIm, outRe, outIm, 3);
+        ComplexArrays.subtract(outRe, outIm, bRe, bIm, outRe, outIm, 3);
+        assertArrayEquals(aRe, outRe, doublePrecision);
+        assertArrayEquals(aIm, outIm, doublePrecision);
+
+        ComplexArrays.scale(aRe, aIm, -2, outRe, outIm, 3);
+        assertArrayEquals(new double[]{-2, 4, -7}, outRe, doublePrecision);
+        assertArrayEquals(new double[]{-4, -1, 2}, outIm, doublePrecision);
+
+        double[] squared = new double[3];
+        ComplexArrays.squaredMagnitudes(aRe, aIm, squared, 3);
+        assertArrayEquals(new double[]{5, 4.25, 13.25}, squared,
+                doublePrecision);
+    }
+}
@@ -0,0 +1,160 @@
+package tests.com.notebook.dsp;
+
+import com.notebook.dsp.BufferedFFT;
+import com.notebook.dsp.Complex;
+import com.notebook.dsp.ConcurrentFFT;
+import com.notebook.dsp.Window;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentFFTTest {
+
+    private static Complex[] expected() {
+        Complex[] expected = new Complex[4];
+        expected[0] = new Complex(14,0);
+        expected[1] = new Complex(-2,-6);
+        expected[2] = new Complex(-6,0);
+        expected[3] = new Complex(-2,6);
+        return expected;
+    }
+
+    private static Complex[] newOutput(int n) {
+        Complex[] output = new Complex[n];
+        for(int i = 0; i < n; ++i) output[i] = new Complex(0,0);
+        return output;
+    }
+
+    @Test
+    public void testCalculateFFT() throws Exception {
+        byte[] input = new byte[]{0,1,8,3,2};
+        Complex[] actual = newOutput(4);
+
+        ConcurrentFFT fft = new ConcurrentFFT(4);
+        fft.calculateFFT(input,4,1,actual);
+
+        assertTrue(Arrays.equals(expected(), actual));
+    }
+
+    @Test
+    public void testCallableFFTManyInFlight() throws Exception {
+        byte[] input = new byte[]{1,8,3,2};
+        ConcurrentFFT fft = new ConcurrentFFT(4, 2);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        List<Future<Complex[]>> futures = new ArrayList<>();
+        for(int i = 0; i < 200; ++i) {
+            futures.add(fft.callableFFT(input,4,0,newOutput(4),executor));
+        }
+        // input is copied before callableFFT returns
+        input[0] = 100;
+
+        for(Future<Complex[]> future : futures) {
+            assertTrue(Arrays.equals(expected(), future.get()));
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    public void testCalculateFFTFromManyThreads() throws Exception {
+        ConcurrentFFT fft = new ConcurrentFFT(4, 1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for(int i = 0; i < 8; ++i) {
+            futures.add(executor.submit(() -> {
+                Complex[] input = new Complex[]{
+                        new Complex(1,0), new Complex(8,0),
+                        new Complex(3,0), new Complex(2,0)};
+                Complex[] output = newOutput(4);
+                for(int j = 0; j < 500; ++j) {
+                    fft.calculateFFT(input, output);
+                    if(!Arrays.equals(expected(), output)) return false;
+                }
+                return true;
+            }));
+        }
+
+        for(Future<Boolean> future : futures) {
+            assertTrue(future.get());
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    public void testCalculateFFTsAcrossThreads() throws Exception {
+        byte[] input = new byte[4 * 50];
+        for(int f = 0; f < 50; ++f) {
+            input[4 * f] = 1;
+            input[4 * f + 1] = 8;
+            input[4 * f + 2] = 3;
+            input[4 * f + 3] = 2;
+        }
+        double[] outRe = new double[50 * 3];
+        double[] outIm = new double[50 * 3];
+
+        ConcurrentFFT fft = new ConcurrentFFT(4, 3);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        fft.calculateFFTs(input, 0, 4, 4, 50, outRe, outIm, executor);
+
+        Complex[] expected = expected();
+        for(int f = 0; f < 50; ++f) {
+            for(int k = 0; k < 3; ++k) {
+                assertEquals(expected[k], new Complex(outRe[3 * f + k], outIm[3 * f + k]));
+            }
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    public void testWindowMatchesBufferedFFT() throws Exception {
+        final int n = 16;
+        byte[] bytes = new byte[n + 1];
+        double[] re = new double[n];
+        double[] im = new double[n];
+        Complex[] complex = new Complex[n];
+        for(int i = 0; i < n; ++i) {
+            bytes[i + 1] = (byte) (i * 7 - 50);
+            re[i] = Math.sin(i);
+            im[i] = Math.cos(3 * i);
+            complex[i] = new Complex(re[i], im[i]);
+        }
+
+        BufferedFFT buffered = new BufferedFFT(n);
+        ConcurrentFFT concurrent = new ConcurrentFFT(n);
+        buffered.setWindow(Window.HANN);
+        concurrent.setWindow(Window.HANN);
+
+        Complex[] expected = newOutput(n);
+        Complex[] actual = newOutput(n);
+        buffered.calculateFFT(bytes, n, 1, expected);
+        concurrent.calculateFFT(bytes, n, 1, actual);
+        assertTrue(Arrays.equals(expected, actual));
+
+        buffered.calculateFFT(complex, expected);
+        concurrent.calculateFFT(complex, actual);
+        assertTrue(Arrays.equals(expected, actual));
+
+        double[] expectedRe = new double[n];
+        double[] expectedIm = new double[n];
+        double[] actualRe = new double[n];
+        double[] actualIm = new double[n];
+        buffered.calculateFFT(re, im, n, 0, expectedRe, expectedIm);
+        concurrent.calculateFFT(re, im, n, 0, actualRe, actualIm);
+        assertArrayEquals(expectedRe, actualRe, 0.000001);
+        assertArrayEquals(expectedIm, actualIm, 0.000001);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        assertTrue(Arrays.equals(expected,
+                concurrent.callableFFT(complex, n, 0, newOutput(n),
+                        executor).get()));
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,90 @@
+package tests.com.notebook.dsp;
+
+import com.notebook.dsp.ConstantQ;
+import com.notebook.dsp.Window;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ConstantQTest {
+
+    private static final double SAMPLE_RATE = 8000;
+
+    private static double[] tone(double frequency, int length) {
+        double[] vals = new double[length];
+        for (int i = 0; i < length; ++i) {
+            vals[i] = 50 * Math.sin(2 * Math.PI * frequency * i / SAMPLE_RATE)
+                    + 10 * Math.sin(i * 0.37);
+        }
+        return vals;
+    }
+
+    @Test
+    public void testToneFallsInItsBin() throws Exception {
+        // A2 up through four octaves of semitones
+        ConstantQ cq = new ConstantQ(SAMPLE_RATE, 110, 12, 48);
+        assertEquals(440, cq.getFrequency(24), 0.000001);
+        // most of every kernel is dropped
+        assertTrue(cq.getKernelSize() < 48 * cq.getFFTSize() / 20);
+
+        double[] power = new double[48];
+        for (int k : new int[]{0, 7, 24, 40}) {
+            cq.calculatePower(tone(cq.getFrequency(k), cq.getFFTSize()), 0,
+                    power);
+            int strongest = 0;
+            for (int i = 1; i < power.length; ++i) {
+                if (power[i] > power[strongest]) strongest = i;
+            }
+            assertEquals(k, strongest);
+        }
+    }
+
+    @Test
+    public void testMatchesTemporalKernels() throws Exception {
+        final int bins = 20;
+        ConstantQ cq = new ConstantQ(SAMPLE_RATE, 200, 12, bins, 0);
+        final int N = cq.getFFTSize();
+        final double Q = 1 / (Math.pow(2, 1.0 / 12) - 1);
+
+        byte[] input = new byte[N + 3];
+        for (int i = 0; i < input.length; ++i) {
+            input[i] = (byte) Math.round(
+                    40 * Math.sin(2 * Math.PI * 523.25 * i / SAMPLE_RATE)
+                    + 30 * Math.sin(2 * Math.PI * 300 * i / SAMPLE_RATE));
+        }
+        double[] actualRe = new double[bins];
+        double[] actualIm = new double[bins];
+        cq.calculate(input, 3, actualRe, actualIm);
+
+        double[] expectedRe = new double[bins];
+        double[] expectedIm = new double[bins];
+        double largest = 0;
+        for (int k = 0; k < bins; ++k) {
+            int length = (int) Math.ceil(Q * SAMPLE_RATE / cq.getFrequency(k));
+            double[] window = Window.HAMMING.coefficients(length);
+            int start = (N - length) / 2;
+            double re = 0;
+            double im = 0;
+            for (int n = 0; n < length; ++n) {
+                double angle = 2 * Math.PI * Q * n / length;
+                double x = input[3 + start + n] * window[n] / length;
+                re += x * Math.cos(angle);
+                im -= x * Math.sin(angle);
+            }
+            expectedRe[k] = re;
+            expectedIm[k] = im;
+            largest = Math.max(largest, Math.hypot(re, im));
+        }
+
+        // only the negative frequency side lobes of the kernels are lost
+        for (int k = 0; k < bins; ++k) {
+            assertEquals(expectedRe[k], actualRe[k], 0.01 * largest);
+            assertEquals(expectedIm[k], actualIm[k], 0.01 * largest);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAboveNyquist() {
+        new ConstantQ(SAMPLE_RATE, 1000, 12, 37);
+    }
+}
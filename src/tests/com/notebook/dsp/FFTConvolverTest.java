@@ -0,0 +1,91 @@
+package tests.com.notebook.dsp;
+
+import com.notebook.dsp.FFTConvolver;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FFTConvolverTest {
+
+    private final double doublePrecision = 0.000001;
+
+    private static double[] random(int length, long seed) {
+        Random random = new Random(seed);
+        double[] vals = new double[length];
+        for (int i = 0; i < length; ++i) vals[i] = random.nextDouble() - 0.5;
+        return vals;
+    }
+
+    private static double directConvolution(double[] kernel, double[] input, int n) {
+        double sum = 0;
+        for (int k = 0; k < kernel.length && k <= n; ++k) {
+            sum += kernel[k] * input[n - k];
+        }
+        return sum;
+    }
+
+    private void assertMatchesDirect(FFTConvolver convolver, double[] kernel) throws Exception {
+        double[] input = random(1000, 2);
+        double[] output = new double[input.length];
+
+        Random chunks = new Random(9);
+        int offset = 0;
+        while (offset < input.length) {
+            int count = Math.min(input.length - offset, chunks.nextInt(70) + 1);
+            convolver.apply(input, offset, output, offset, count);
+            offset += count;
+        }
+
+        int latency = convolver.getLatency();
+        for (int n = 0; n < input.length; ++n) {
+            double expected = n < latency ? 0 : directConvolution(kernel, input, n - latency);
+            assertEquals(expected, output[n], doublePrecision);
+        }
+    }
+
+    @Test
+    public void testMatchesDirectConvolution() throws Exception {
+        double[] kernel = random(37, 1);
+        FFTConvolver convolver = new FFTConvolver(kernel);
+
+        assertEquals(128, convolver.getFFTSize());
+        assertEquals(92, convolver.getBlockSize());
+        assertMatchesDirect(convolver, kernel);
+    }
+
+    @Test
+    public void testNotPowerOfTwoSize() throws Exception {
+        double[] kernel = random(20, 4);
+        assertMatchesDirect(new FFTConvolver(kernel, 60), kernel);
+    }
+
+    @Test
+    public void testSingleTap() throws Exception {
+        double[] kernel = new double[]{2};
+        assertMatchesDirect(new FFTConvolver(kernel), kernel);
+    }
+
+    @Test
+    public void testInPlaceAndReset() throws Exception {
+        double[] kernel = random(10, 5);
+        double[] input = random(100, 6);
+        FFTConvolver convolver = new FFTConvolver(kernel);
+
+        double[] expected = new double[input.length];
+        convolver.apply(input, 0, expected, 0, input.length);
+
+        convolver.reset();
+        double[] vals = input.clone();
+        convolver.apply(vals, 60, 0);
+        convolver.apply(vals, 40, 60);
+
+        assertArrayEquals(expected, vals, doublePrecision);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFFTTooSmall() throws Exception {
+        new FFTConvolver(new double[8], 8);
+    }
+}
@@ -0,0 +1,66 @@
+package tests.com.notebook.dsp;
+
+import com.notebook.dsp.FFTPlan;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FFTPlanTest {
+
+    private final int originalMax = FFTPlan.getMaxCachedPlans();
+
+    @After
+    public void tearDown() {
+        FFTPlan.setMaxCachedPlans(originalMax);
+    }
+
+    @Test
+    public void testGetIsShared() throws Exception {
+        FFTPlan first = FFTPlan.get(64);
+        FFTPlan second = FFTPlan.get(64);
+
+        assertSame(first, second);
+        assertEquals(64, first.getSize());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() throws Exception {
+        FFTPlan.setMaxCachedPlans(2);
+
+        FFTPlan.get(2);
+        FFTPlan.get(4);
+        FFTPlan.get(2);
+        FFTPlan.get(8);
+
+        assertTrue(FFTPlan.isCached(2));
+        assertFalse(FFTPlan.isCached(4));
+        assertTrue(FFTPlan.isCached(8));
+    }
+
+    @Test
+    public void testShrinkingEvicts() throws Exception {
+        FFTPlan.get(16);
+        FFTPlan.get(32);
+        FFTPlan.setMaxCachedPlans(1);
+
+        assertFalse(FFTPlan.isCached(16));
+        assertTrue(FFTPlan.isCached(32));
+    }
+
+    @Test
+    public void testAlgorithmSelection() throws Exception {
+        assertEquals(FFTPlan.Algorithm.RADIX_2, FFTPlan.get(1).getAlgorithm());
+        assertEquals(FFTPlan.Algorithm.RADIX_2, FFTPlan.get(1024).getAlgorithm());
+        assertEquals(FFTPlan.Algorithm.MIXED_RADIX, FFTPlan.get(12).getAlgorithm());
+        assertEquals(FFTPlan.Algorithm.MIXED_RADIX, FFTPlan.get(480).getAlgorithm());
+        assertEquals(FFTPlan.Algorithm.MIXED_RADIX, FFTPlan.get(960).getAlgorithm());
+        assertEquals(FFTPlan.Algorithm.BLUESTEIN, FFTPlan.get(7).getAlgorithm());
+        assertEquals(FFTPlan.Algorithm.BLUESTEIN, FFTPlan.get(2 * 97).getAlgorithm());
+    }
+
+    @Test(expected = Exception.class)
+    public void testNotPositive() throws Exception {
+        FFTPlan.get(0);
+    }
+}
@@ -0,0 +1,112 @@
+package tests.com.notebook.dsp;
+
+import com.notebook.dsp.ArrayFFT;
+import com.notebook.dsp.FloatFFT;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FloatFFTTest {
+
+    /**
+     * RMS of the difference between the float and double spectra relative to
+     * the RMS of the double spectrum
+     */
+    private static double relativeError(float[] re, float[] im,
+                                        double[] expectedRe,
+                                        double[] expectedIm, int n) {
+        double error = 0;
+        double power = 0;
+        for (int k = 0; k < n; ++k) {
+            double dr = re[k] - expectedRe[k];
+            double di = im[k] - expectedIm[k];
+            error += dr * dr + di * di;
+            power += expectedRe[k] * expectedRe[k]
+                    + expectedIm[k] * expectedIm[k];
+        }
+        return Math.sqrt(error / power);
+    }
+
+    private static void assertMatchesDouble(int n, double bound)
+            throws Exception {
+        Random random = new Random(n);
+        float[] re = new float[n];
+        float[] im = new float[n];
+        double[] expectedRe = new double[n];
+        double[] expectedIm = new double[n];
+        for (int i = 0; i < n; ++i) {
+            re[i] = (float) (random.nextDouble() - 0.5);
+            im[i] = (float) (random.nextDouble() - 0.5);
+            expectedRe[i] = re[i];
+            expectedIm[i] = im[i];
+        }
+
+        new FloatFFT(n).transform(re, im, n);
+        new ArrayFFT(n).transform(expectedRe, expectedIm, n);
+
+        assertTrue(relativeError(re, im, expectedRe, expectedIm, n) < bound);
+    }
+
+    @Test
+    public void testErrorBound() throws Exception {
+        for (int n = 2; n <= 65536; n <<= 1) {
+            assertMatchesDouble(n, 1e-6);
+        }
+    }
+
+    @Test
+    public void testNotPowerOfTwo() throws Exception {
+        assertMatchesDouble(12, 1e-7);
+        assertMatchesDouble(1009, 1e-7);
+    }
+
+    @Test
+    public void testInverse() throws Exception {
+        final int n = 256;
+        Random random = new Random(1);
+        float[] re = new float[n];
+        float[] im = new float[n];
+        for (int i = 0; i < n; ++i) {
+            re[i] = (float) random.nextDouble();
+            im[i] = (float) random.nextDouble();
+        }
+        float[] originalRe = re.clone();
+        float[] originalIm = im.clone();
+
+        FloatFFT fft = new FloatFFT(n);
+        fft.transform(re, im, n);
+        fft.inverseTransform(re, im, n);
+
+        assertArrayEquals(originalRe, re, 1e-5f);
+        assertArrayEquals(originalIm, im, 1e-5f);
+    }
+
+    @Test
+    public void testReal() throws Exception {
+        for (int n : new int[]{2, 16, 1024, 24}) {
+            Random random = new Random(n);
+            float[] input = new float[n + 3];
+            double[] expectedRe = new double[n];
+            double[] expectedIm = new double[n];
+            for (int i = 0; i < n; ++i) {
+                input[i + 3] = (float) (random.nextDouble() - 0.5);
+                expectedRe[i] = input[i + 3];
+            }
+            new ArrayFFT(n).transform(expectedRe, expectedIm, n);
+
+            float[] re = new float[n / 2 + 1];
+            float[] im = new float[n / 2 + 1];
+            new FloatFFT(n).transformReal(input, 3, n, re, im);
+
+            assertTrue(relativeError(re, im, expectedRe, expectedIm,
+                    n / 2 + 1) < 1e-6);
+        }
+    }
+
+    @Test(expected = Exception.class)
+    public void testTooLarge() throws Exception {
+        new FloatFFT(4).transform(new float[8], new float[8], 8);
+    }
+}
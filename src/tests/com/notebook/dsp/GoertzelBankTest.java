@@ -0,0 +1,75 @@
+package tests.com.notebook.dsp;
+
+import com.notebook.dsp.ArrayFFT;
+import com.notebook.dsp.GoertzelBank;
+import com.notebook.dsp.NoteDetector;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class GoertzelBankTest {
+
+    private final double doublePrecision = 0.000001;
+
+    @Test
+    public void testMatchesFFTBins() throws Exception {
+        final int n = 64;
+        final double sampleRate = 6400;
+        Random random = new Random(1);
+        double[] input = new double[n + 5];
+        double[] re = new double[n];
+        double[] im = new double[n];
+        for (int i = 0; i < n; ++i) {
+            input[i + 5] = random.nextDouble() - 0.5;
+            re[i] = input[i + 5];
+        }
+        new ArrayFFT(n).transform(re, im, n);
+
+        int[] bins = new int[]{0, 3, 17, 31};
+        double[] frequencies = new double[bins.length];
+        for (int t = 0; t < bins.length; ++t) {
+            frequencies[t] = bins[t] * sampleRate / n;
+        }
+        GoertzelBank bank = new GoertzelBank(sampleRate, frequencies);
+
+        double[] outRe = new double[bins.length];
+        double[] outIm = new double[bins.length];
+        double[] power = new double[bins.length];
+        bank.calculate(input, 5, n, outRe, outIm);
+        bank.calculatePower(input, 5, n, power);
+        for (int t = 0; t < bins.length; ++t) {
+            int k = bins[t];
+            assertEquals(re[k], outRe[t], doublePrecision);
+            assertEquals(im[k], outIm[t], doublePrecision);
+            assertEquals(re[k] * re[k] + im[k] * im[k], power[t],
+                    doublePrecision);
+        }
+    }
+
+    @Test
+    public void testPianoNotes() {
+        final double sampleRate = 8000;
+        GoertzelBank bank = GoertzelBank.notes(sampleRate, 21, 108);
+        // C8 at 4186 Hz is above the Nyquist frequency
+        assertEquals(87, bank.getTargetCount());
+        assertEquals(27.5, bank.getFrequency(0), doublePrecision);
+
+        byte[] input = new byte[2048];
+        double frequency = NoteDetector.midiToFrequency(64);
+        for (int i = 0; i < input.length; ++i) {
+            input[i] = (byte) Math.round(100
+                    * Math.sin(2 * Math.PI * frequency * i / sampleRate));
+        }
+
+        double[] power = new double[bank.getTargetCount()];
+        bank.calculatePower(input, 0, input.length, power);
+        assertEquals(64 - 21, bank.findStrongest(power));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAboveNyquist() {
+        new GoertzelBank(1000, new double[]{500});
+    }
+}
@@ -0,0 +1,172 @@
+package tests.com.notebook.dsp;
+
+import com.notebook.dsp.Complex;
+import com.notebook.dsp.LowPassFilter;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LowPassFilterTest {
+
+    private final double doublePrecision = 0.000001;
+
+    private static double[] random(int length, long seed) {
+        Random random = new Random(seed);
+        double[] vals = new double[length];
+        for (int i = 0; i < length; ++i) vals[i] = random.nextDouble() - 0.5;
+        return vals;
+    }
+
+    @Test
+    public void testStreamMatchesSingleBlock() {
+        double[] input = random(100, 1);
+
+        double[] expected = input.clone();
+        new LowPassFilter(0.001, 50).apply(expected, expected.length, 0);
+
+        LowPassFilter filter = new LowPassFilter(0.001, 50);
+        double[] actual = new double[input.length];
+        filter.process(input, 0, actual, 0, 30);
+        filter.process(input, 30, actual, 30, 1);
+        filter.process(input, 31, actual, 31, 69);
+
+        assertArrayEquals(expected, actual, doublePrecision);
+    }
+
+    @Test
+    public void testInterleavedChannels() {
+        final int channels = 3;
+        final int frames = 50;
+        double[] input = random(channels * frames, 2);
+
+        LowPassFilter filter = new LowPassFilter(0.001, 50, channels);
+        double[] vals = input.clone();
+        filter.process(vals, 20, 0);
+        filter.process(vals, 30, 20 * channels);
+
+        for (int c = 0; c < channels; ++c) {
+            double[] channel = new double[frames];
+            for (int f = 0; f < frames; ++f) {
+                channel[f] = input[f * channels + c];
+            }
+            new LowPassFilter(0.001, 50).apply(channel, frames, 0);
+            for (int f = 0; f < frames; ++f) {
+                assertEquals(channel[f], vals[f * channels + c],
+                        doublePrecision);
+            }
+        }
+    }
+
+    @Test
+    public void testReset() {
+        double[] input = random(40, 3);
+        LowPassFilter filter = new LowPassFilter(0.001, 50);
+
+        double[] first = new double[input.length];
+        filter.process(input, 0, first, 0, input.length);
+
+        filter.reset();
+        double[] second = new double[input.length];
+        filter.process(input, 0, second, 0, input.length);
+
+        assertArrayEquals(first, second, 0);
+        assertEquals(input[0], second[0], 0);
+    }
+
+    @Test
+    public void testFixedPointMatchesDouble() {
+        double[] input = random(200, 4);
+        short[] pcm = new short[input.length];
+        byte[] bytes = new byte[input.length];
+        for (int i = 0; i < input.length; ++i) {
+            pcm[i] = (short) Math.round(input[i] * 60000);
+            bytes[i] = (byte) Math.round(input[i] * 250);
+        }
+
+        LowPassFilter filter = new LowPassFilter(0.001, 50);
+        double[] expectedPcm = new double[input.length];
+        double[] expectedBytes = new double[input.length];
+        for (int i = 0; i < input.length; ++i) {
+            expectedPcm[i] = pcm[i];
+            expectedBytes[i] = bytes[i];
+        }
+        filter.apply(expectedPcm, input.length, 0);
+        filter.apply(expectedBytes, input.length, 0);
+
+        filter.apply(pcm, input.length, 0);
+        filter.apply(bytes, input.length, 0);
+        for (int i = 0; i < input.length; ++i) {
+            assertEquals(expectedPcm[i], pcm[i], 1);
+            assertEquals(expectedBytes[i], bytes[i], 1);
+        }
+    }
+
+    @Test
+    public void testFixedPointConverges() {
+        // truncating every output would stop short of the input for ever
+        byte[] vals = new byte[2000];
+        Arrays.fill(vals, 1, vals.length, (byte) 100);
+
+        new LowPassFilter(0.001, 5).apply(vals, vals.length, 0);
+        assertEquals(100, vals[vals.length - 1]);
+
+        short[] pcm = new short[]{Short.MIN_VALUE, Short.MAX_VALUE,
+                Short.MAX_VALUE, Short.MAX_VALUE};
+        new LowPassFilter(0.001, 100000).apply(pcm, pcm.length, 0);
+        assertEquals(Short.MAX_VALUE, pcm[3]);
+    }
+
+    @Test
+    public void testFixedPointLowCutoff() {
+        // 20 ms of a step at 44.1 kHz, where a Q15 alpha was far off
+        for (double frequency : new double[]{0.1, 1, 2, 5}) {
+            short[] pcm = new short[882];
+            Arrays.fill(pcm, 1, pcm.length, (short) 30000);
+            double[] expected = new double[pcm.length];
+            for (int i = 0; i < pcm.length; ++i) expected[i] = pcm[i];
+
+            LowPassFilter filter = new LowPassFilter(1 / 44100.0, frequency);
+            filter.apply(expected, expected.length, 0);
+            filter.apply(pcm, pcm.length, 0);
+            for (int i = 0; i < pcm.length; ++i) {
+                assertEquals(expected[i], pcm[i], 1);
+            }
+            assertTrue(pcm[pcm.length - 1] > 0);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCutoffTooLowForFixedPoint() {
+        LowPassFilter filter = new LowPassFilter(1 / 44100.0, 1e-7);
+
+        // doubles never use the fixed-point alpha
+        double[] vals = new double[]{0, 100, 100};
+        filter.apply(vals, vals.length, 0);
+        assertTrue(vals[2] > 0);
+        new LowPassFilter(0.001, 0).process(vals, 0, vals, 0, vals.length);
+        assertEquals(0, vals[2], 0);
+
+        filter.apply(new short[]{0, 100, 100}, 3, 0);
+    }
+
+    @Test
+    public void testComplexMatchesSplitArrays() {
+        double[] re = random(50, 5);
+        double[] im = random(50, 6);
+        Complex[] vals = new Complex[re.length];
+        for (int i = 0; i < vals.length; ++i) {
+            vals[i] = new Complex(re[i], im[i]);
+        }
+
+        LowPassFilter filter = new LowPassFilter(0.001, 50);
+        filter.apply(vals, vals.length, 0);
+        filter.apply(re, im, re.length, 0);
+        for (int i = 0; i < vals.length; ++i) {
+            assertEquals(re[i], vals[i].getReal(), doublePrecision);
+            assertEquals(im[i], vals[i].getImaginary(), doublePrecision);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package tests.com.notebook.dsp;
+
+import com.notebook.dsp.NoteDetector;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class NoteDetectorTest {
+
+    private static final double SAMPLE_RATE = 8000;
+
+    private static byte[] tone(double frequency, int length) {
+        byte[] vals = new byte[length];
+        for (int i = 0; i < length; ++i) {
+            vals[i] = (byte) Math.round(100
+                    * Math.sin(2 * Math.PI * frequency * i / SAMPLE_RATE));
+        }
+        return vals;
+    }
+
+    private static List<double[]> detect(NoteDetector detector,
+                                         byte[] input, int chunk)
+            throws Exception {
+        final List<double[]> notes = new ArrayList<>();
+        for (int offset = 0; offset < input.length; offset += chunk) {
+            detector.process(input, offset,
+                    Math.min(chunk, input.length - offset),
+                    (frequency, note, cents, frame) -> notes.add(
+                            new double[]{frequency, note, cents, frame}));
+        }
+        return notes;
+    }
+
+    @Test
+    public void testA4() throws Exception {
+        NoteDetector detector = new NoteDetector(SAMPLE_RATE, 1024, 256);
+        List<double[]> notes = detect(detector, tone(440, 4096), 4096);
+
+        assertEquals((4096 - 1024) / 256 + 1, notes.size());
+        for (int f = 0; f < notes.size(); ++f) {
+            double[] note = notes.get(f);
+            assertEquals(440, note[0], 2);
+            assertEquals(69, note[1], 0);
+            assertEquals(0, note[2], 10);
+            assertEquals(f, note[3], 0);
+        }
+    }
+
+    @Test
+    public void testChunksAndFilter() throws Exception {
+        byte[] input = tone(261.63, 3000);
+
+        NoteDetector whole = new NoteDetector(SAMPLE_RATE, 512, 128);
+        whole.setLowPass(1000);
+        List<double[]> expected = detect(whole, input, input.length);
+
+        NoteDetector chunked = new NoteDetector(SAMPLE_RATE, 512, 128);
+        chunked.setLowPass(1000);
+        List<double[]> actual = detect(chunked, input, 77);
+
+        assertEquals(expected.size(), actual.size());
+        for (int f = 0; f < expected.size(); ++f) {
+            assertArrayEquals(expected.get(f), actual.get(f), 0.000001);
+            assertEquals(60, actual.get(f)[1], 0);
+        }
+    }
+
+    @Test
+    public void testSilence() throws Exception {
+        NoteDetector detector = new NoteDetector(SAMPLE_RATE, 256, 256);
+        detector.setMinPower(1);
+        assertEquals(0, detect(detector, new byte[1024], 1024).size());
+    }
+
+    @Test
+    public void testSmallestFrame() throws Exception {
+        NoteDetector detector = new NoteDetector(SAMPLE_RATE, 4, 4);
+        detect(detector, tone(2000, 64), 64);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFrameTooSmall() {
+        new NoteDetector(SAMPLE_RATE, 3, 3);
+    }
+
+    @Test
+    public void testConversions() {
+        assertEquals(69, NoteDetector.frequencyToMidi(440), 0.000001);
+        assertEquals(261.6256, NoteDetector.midiToFrequency(60), 0.0001);
+        assertEquals("C", NoteDetector.noteName(60));
+        assertEquals("A#", NoteDetector.noteName(70));
+        assertEquals(4, NoteDetector.octave(60));
+        assertEquals(-1, NoteDetector.octave(0));
+    }
+}
@@ -0,0 +1,214 @@
+package tests.com.notebook.dsp;
+
+import com.notebook.dsp.BufferedFFT;
+import com.notebook.dsp.PCMFileAnalyzer;
+import com.notebook.dsp.STFT;
+import com.notebook.dsp.SampleFormat;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PCMFileAnalyzerTest {
+
+    private final double doublePrecision = 0.000001;
+
+    private static final int FRAME_SIZE = 64;
+    private static final int HOP = 24;
+
+    private static double[] tone(int length, double bin, double amplitude) {
+        double[] vals = new double[length];
+        for (int i = 0; i < length; ++i) {
+            vals[i] = Math.round(amplitude
+                    * Math.sin(2 * Math.PI * bin * i / FRAME_SIZE));
+        }
+        return vals;
+    }
+
+    /**
+     * 16-bit stereo WAV with an extra chunk before the data, the left channel
+     * being silent and the right one holding samples
+     */
+    private static byte[] wav(double[] samples) {
+        int dataLength = samples.length * 4;
+        ByteBuffer b = ByteBuffer.allocate(44 + 10 + dataLength)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(0x46464952).putInt(b.capacity() - 8).putInt(0x45564157);
+        b.putInt(0x20746d66).putInt(16).putShort((short) 1).putShort((short) 2)
+                .putInt(8000).putInt(8000 * 4).putShort((short) 4)
+                .putShort((short) 16);
+        b.putInt(0x5453494c).putInt(2).putShort((short) 0); // "LIST"
+        b.putInt(0x61746164).putInt(dataLength);
+        for (double sample : samples) {
+            b.putShort((short) 0).putShort((short) sample);
+        }
+        return b.array();
+    }
+
+    private static void assertFrames(double[] samples, List<double[]> frames)
+            throws Exception {
+        BufferedFFT fft = new BufferedFFT(FRAME_SIZE);
+        double[] re = new double[FRAME_SIZE / 2 + 1];
+        double[] im = new double[FRAME_SIZE / 2 + 1];
+        assertEquals((samples.length - FRAME_SIZE) / HOP + 1, frames.size());
+        for (int f = 0; f < frames.size(); ++f) {
+            fft.calculateRealFFT(samples, FRAME_SIZE, f * HOP, re, im);
+            double[] frame = frames.get(f);
+            for (int k = 0; k < re.length; ++k) {
+                assertEquals(re[k], frame[2 * k], 0.000001);
+                assertEquals(im[k], frame[2 * k + 1], 0.000001);
+            }
+        }
+    }
+
+    private static STFT.FrameListener collect(final List<double[]> frames) {
+        return (re, im, frame) -> {
+            assertEquals(frames.size(), frame);
+            double[] copy = new double[2 * re.length];
+            for (int k = 0; k < re.length; ++k) {
+                copy[2 * k] = re[k];
+                copy[2 * k + 1] = im[k];
+            }
+            frames.add(copy);
+        };
+    }
+
+    @Test
+    public void testWav() throws Exception {
+        double[] samples = tone(500, 8, 10000);
+        File file = File.createTempFile("analyzer", ".wav");
+        try {
+            Files.write(file.toPath(), wav(samples));
+            PCMFileAnalyzer analyzer = new PCMFileAnalyzer(FRAME_SIZE, HOP);
+
+            List<double[]> frames = new ArrayList<>();
+            long count = analyzer.analyzeWav(file.toPath(), 1,
+                    collect(frames));
+            assertEquals(frames.size(), count);
+            assertFrames(samples, frames);
+
+            final List<Double> peaks = new ArrayList<>();
+            analyzer.analyzeWav(file.toPath(), 1, PCMFileAnalyzer.peaks(
+                    (bin, frame) -> peaks.add(bin)));
+            assertEquals(count, peaks.size());
+            for (double peak : peaks) assertEquals(8, peak, 0.01);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testWavSizeUnset() throws Exception {
+        double[] samples = tone(300, 8, 10000);
+        File file = File.createTempFile("analyzer", ".wav");
+        try {
+            // the RIFF size unset as well, or ending at the data chunk
+            int[][] sizes = {{0, 0}, {0xFFFFFFFF, 0xFFFFFFFF}, {46, 0}};
+            for (int[] size : sizes) {
+                ByteBuffer b = ByteBuffer.wrap(wav(samples))
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                b.putInt(4, size[0]).putInt(50, size[1]);
+                Files.write(file.toPath(), b.array());
+
+                List<double[]> frames = new ArrayList<>();
+                new PCMFileAnalyzer(FRAME_SIZE, HOP).analyzeWav(
+                        file.toPath(), 1, collect(frames));
+                assertFrames(samples, frames);
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testWavEmptyData() throws Exception {
+        // an empty data chunk followed by a LIST chunk the RIFF size covers
+        ByteBuffer b = ByteBuffer.allocate(44 + 8 + 400)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(0x46464952).putInt(b.capacity() - 8).putInt(0x45564157);
+        b.putInt(0x20746d66).putInt(16).putShort((short) 1).putShort((short) 1)
+                .putInt(8000).putInt(8000 * 2).putShort((short) 2)
+                .putShort((short) 16);
+        b.putInt(0x61746164).putInt(0);
+        b.putInt(0x5453494c).putInt(400);
+        for (int i = 0; i < 200; ++i) b.putShort((short) (i * 100));
+        File file = File.createTempFile("analyzer", ".wav");
+        try {
+            Files.write(file.toPath(), b.array());
+            assertEquals(0, new PCMFileAnalyzer(FRAME_SIZE, HOP).analyzeWav(
+                    file.toPath(), 0, (re, im, frame) -> fail()));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testTruncatedFormat() throws Exception {
+        ByteBuffer b = ByteBuffer.allocate(28).order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(0x46464952).putInt(20).putInt(0x45564157);
+        b.putInt(0x20746d66).putInt(8).putShort((short) 1)
+                .putShort((short) 1).putInt(8000);
+        File file = File.createTempFile("analyzer", ".wav");
+        try {
+            Files.write(file.toPath(), b.array());
+            new PCMFileAnalyzer(FRAME_SIZE, HOP).analyzeWav(file.toPath(), 0,
+                    (re, im, frame) -> { });
+            fail();
+        } catch (Exception e) {
+            assertEquals("Not a WAV file", e.getMessage());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testRawFloat() throws Exception {
+        double[] samples = tone(300, 5, 1);
+        ByteBuffer b = ByteBuffer.allocate(7 + samples.length * 4)
+                .order(ByteOrder.BIG_ENDIAN);
+        b.position(7);
+        for (double sample : samples) b.putFloat((float) sample);
+
+        File file = File.createTempFile("analyzer", ".raw");
+        try {
+            Files.write(file.toPath(), b.array());
+            PCMFileAnalyzer analyzer = new PCMFileAnalyzer(FRAME_SIZE, HOP);
+
+            List<double[]> frames = new ArrayList<>();
+            analyzer.analyzeRaw(file.toPath(), 7, -1, SampleFormat.FLOAT_32,
+                    ByteOrder.BIG_ENDIAN, 1, 0, collect(frames));
+            assertFrames(samples, frames);
+
+            frames.clear();
+            assertEquals(0, analyzer.analyzeRaw(file.toPath(), 7,
+                    4 * (FRAME_SIZE - 1), SampleFormat.FLOAT_32,
+                    ByteOrder.BIG_ENDIAN, 1, 0, collect(frames)));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testPCM24() throws Exception {
+        ByteBuffer little = ByteBuffer.wrap(new byte[]{
+                (byte) 0x01, (byte) 0x02, (byte) 0xFF})
+                .order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer big = ByteBuffer.wrap(new byte[]{
+                (byte) 0x7F, (byte) 0x02, (byte) 0x01})
+                .order(ByteOrder.BIG_ENDIAN);
+
+        double[] re = new double[1];
+        double[] im = new double[1];
+        BufferedFFT fft = new BufferedFFT(1);
+        fft.calculateRealFFT(little, 0, 1, SampleFormat.PCM_24, re, im);
+        assertEquals(0xFF0201 - 0x1000000, re[0], doublePrecision);
+        fft.calculateRealFFT(big, 0, 1, SampleFormat.PCM_24, re, im);
+        assertEquals(0x7F0201, re[0], doublePrecision);
+    }
+}
@@ -0,0 +1,77 @@
+package tests.com.notebook.dsp;
+
+import com.notebook.dsp.ArrayFFT;
+import com.notebook.dsp.ParallelFFT;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ParallelFFTTest {
+
+    private final double doublePrecision = 0.000001;
+
+    private static void assertSameAsSequential(ParallelFFT parallel, int n)
+            throws Exception {
+        Random random = new Random(n);
+        double[] re = new double[n];
+        double[] im = new double[n];
+        for (int i = 0; i < n; ++i) {
+            re[i] = random.nextDouble() - 0.5;
+            im[i] = random.nextDouble() - 0.5;
+        }
+        double[] expectedRe = re.clone();
+        double[] expectedIm = im.clone();
+        new ArrayFFT(n).transform(expectedRe, expectedIm, n);
+
+        parallel.transform(re, im, n);
+
+        for (int i = 0; i < n; ++i) {
+            assertEquals(expectedRe[i], re[i], 0.000001);
+            assertEquals(expectedIm[i], im[i], 0.000001);
+        }
+    }
+
+    @Test
+    public void testMatchesSequential() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ParallelFFT fft = new ParallelFFT(1 << 14, 64, pool);
+
+        for (int n = 2; n <= 1 << 14; n *= 4) {
+            assertSameAsSequential(fft, n);
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void testNotPowerOfTwo() throws Exception {
+        ParallelFFT fft = new ParallelFFT(960, 64, ForkJoinPool.commonPool());
+        assertSameAsSequential(fft, 960);
+    }
+
+    @Test
+    public void testThresholdRounded() throws Exception {
+        ParallelFFT fft = new ParallelFFT(16, 100, ForkJoinPool.commonPool());
+        assertEquals(64, fft.getSequentialThreshold());
+    }
+
+    @Test
+    public void testKnownValues() throws Exception {
+        double[] re = new double[]{1, 8, 3, 2};
+        double[] im = new double[4];
+
+        ParallelFFT fft = new ParallelFFT(4, 2, ForkJoinPool.commonPool());
+        fft.transform(re, im, 4);
+
+        assertArrayEquals(new double[]{14, -2, -6, -2}, re, doublePrecision);
+        assertArrayEquals(new double[]{0, -6, 0, 6}, im, doublePrecision);
+    }
+
+    @Test(expected = Exception.class)
+    public void testTooLarge() throws Exception {
+        ParallelFFT fft = new ParallelFFT(64, 2, ForkJoinPool.commonPool());
+        fft.transform(new double[128], new double[128], 128);
+    }
+}
@@ -144,4 +144,60 @@ public class PeakInterpolatorTest {
 
         Assert.assertEquals(expected,actual, doublePrecision);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testFindPeaks() throws Exception {
+        double[] mock = new double[]{0,5,0,1,9,2,0,3,0,7,7,1,0};
+        double[] positions = new double[3];
+        double[] magnitudes = new double[3];
+
+        int count = PeakInterpolator.findPeaks(mock, 2, 1, positions, magnitudes);
+
+        Assert.assertEquals(3, count);
+        double d = (2.0-1)/(2*(18-1-2));
+        Assert.assertEquals(4 + d, positions[0], doublePrecision);
+        Assert.assertEquals(9 + 0.25*(2.0-1)*d, magnitudes[0], doublePrecision);
+        Assert.assertEquals(9.5, positions[1], doublePrecision);
+        Assert.assertEquals(5, magnitudes[2], doublePrecision);
+        Assert.assertEquals(1, positions[2], doublePrecision);
+    }
+
+    @Test
+    public void testFindPeaksMinDistance() throws Exception {
+        double[] mock = new double[]{0,5,0,8,0,6,0,0,4,0};
+        double[] positions = new double[4];
+        double[] magnitudes = new double[4];
+
+        int count = PeakInterpolator.findPeaks(mock, 0, 3, positions, magnitudes);
+
+        Assert.assertEquals(2, count);
+        Assert.assertEquals(3, positions[0], doublePrecision);
+        Assert.assertEquals(8, magnitudes[0], doublePrecision);
+        Assert.assertEquals(8, positions[1], doublePrecision);
+    }
+
+    @Test
+    public void testFindPeaksMinDistanceChain() throws Exception {
+        // 4 is within 5 of both, but only 8 is kept, so 1 is not suppressed
+        double[] mock = new double[]{0,5,0,0,6,0,0,0,7,0};
+        double[] positions = new double[4];
+        double[] magnitudes = new double[4];
+
+        int count = PeakInterpolator.findPeaks(mock, 0, 5, positions, magnitudes);
+
+        Assert.assertEquals(2, count);
+        Assert.assertEquals(8, positions[0], doublePrecision);
+        Assert.assertEquals(7, magnitudes[0], doublePrecision);
+        Assert.assertEquals(1, positions[1], doublePrecision);
+        Assert.assertEquals(5, magnitudes[1], doublePrecision);
+    }
+
+    @Test
+    public void testFindPeaksThreshold() throws Exception {
+        double[] mock = new double[]{0,1,0,2,0};
+        double[] positions = new double[4];
+        double[] magnitudes = new double[4];
+
+        Assert.assertEquals(0, PeakInterpolator.findPeaks(mock, 3, 1, positions, magnitudes));
+    }
+}
@@ -0,0 +1,114 @@
+package tests.com.notebook.dsp;
+
+import com.notebook.dsp.BufferedFFT;
+import com.notebook.dsp.STFT;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class STFTTest {
+
+    private final double doublePrecision = 0.000001;
+
+    private static byte[] signal(int length) {
+        Random random = new Random(length);
+        byte[] input = new byte[length];
+        random.nextBytes(input);
+        return input;
+    }
+
+    /**
+     * Feeds input to the STFT in random sized chunks and collects the frames
+     */
+    private static List<double[]> collect(STFT stft, byte[] input)
+            throws Exception {
+        List<double[]> frames = new ArrayList<>();
+        Random random = new Random(3);
+        int offset = 0;
+        while (offset < input.length) {
+            int count = Math.min(input.length - offset, random.nextInt(20) + 1);
+            stft.process(input, offset, count, (re, im, frame) -> {
+                assertEquals(frames.size(), frame);
+                double[] copy = new double[2 * re.length];
+                System.arraycopy(re, 0, copy, 0, re.length);
+                System.arraycopy(im, 0, copy, re.length, im.length);
+                frames.add(copy);
+            });
+            offset += count;
+        }
+        return frames;
+    }
+
+    private void assertMatchesBatch(int frameSize, int hop) throws Exception {
+        byte[] input = signal(200);
+        List<double[]> frames = collect(new STFT(frameSize, hop), input);
+
+        int expectedFrames = (input.length - frameSize) / hop + 1;
+        int bins = frameSize / 2 + 1;
+        double[] re = new double[expectedFrames * bins];
+        double[] im = new double[expectedFrames * bins];
+        new BufferedFFT(frameSize).calculateFFTs(
+                input, 0, frameSize, hop, expectedFrames, re, im);
+
+        assertEquals(expectedFrames, frames.size());
+        for (int f = 0; f < expectedFrames; ++f) {
+            for (int k = 0; k < bins; ++k) {
+                assertEquals(re[f * bins + k], frames.get(f)[k], doublePrecision);
+                assertEquals(im[f * bins + k], frames.get(f)[bins + k], doublePrecision);
+            }
+        }
+    }
+
+    @Test
+    public void testOverlappingFrames() throws Exception {
+        assertMatchesBatch(16, 4);
+    }
+
+    @Test
+    public void testHopEqualToFrame() throws Exception {
+        assertMatchesBatch(16, 16);
+    }
+
+    @Test
+    public void testHopLongerThanFrame() throws Exception {
+        assertMatchesBatch(12, 30);
+    }
+
+    @Test
+    public void testDoubleInputMatchesBytes() throws Exception {
+        byte[] input = signal(100);
+        double[] doubles = new double[input.length];
+        for (int i = 0; i < input.length; ++i) doubles[i] = input[i];
+
+        List<double[]> expected = collect(new STFT(8, 3), input);
+        List<double[]> actual = new ArrayList<>();
+        new STFT(8, 3).process(doubles, 0, doubles.length,
+                (re, im, frame) -> {
+                    double[] copy = new double[2 * re.length];
+                    System.arraycopy(re, 0, copy, 0, re.length);
+                    System.arraycopy(im, 0, copy, re.length, im.length);
+                    actual.add(copy);
+                });
+
+        assertEquals(expected.size(), actual.size());
+        for (int f = 0; f < expected.size(); ++f) {
+            assertArrayEquals(expected.get(f), actual.get(f), doublePrecision);
+        }
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        STFT stft = new STFT(8, 8);
+        List<Long> frames = new ArrayList<>();
+        stft.process(new byte[6], 0, 6, (re, im, frame) -> frames.add(frame));
+        stft.reset();
+        stft.process(new byte[6], 0, 6, (re, im, frame) -> frames.add(frame));
+        assertEquals(0, frames.size());
+        stft.process(new byte[2], 0, 2, (re, im, frame) -> frames.add(frame));
+        assertEquals(1, frames.size());
+    }
+}
@@ -0,0 +1,70 @@
+package tests.com.notebook.dsp;
+
+import com.notebook.dsp.BufferedFFT;
+import com.notebook.dsp.Complex;
+import com.notebook.dsp.SlidingDFT;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SlidingDFTTest {
+
+    @Test
+    public void testMatchesFFTOfWindow() throws Exception {
+        byte[] input = new byte[100];
+        new Random(5).nextBytes(input);
+
+        SlidingDFT sdft = new SlidingDFT(16);
+        BufferedFFT fft = new BufferedFFT(16);
+        Complex[] actual = new Complex[16];
+        for (int i = 0; i < 16; ++i) actual[i] = new Complex(0, 0);
+
+        for (int i = 0; i < input.length; ++i) {
+            sdft.update(input[i]);
+            if (i >= 15) {
+                Complex[] expected = fft.calculateFFT(input, 16, i - 15);
+                sdft.getSpectrum(actual);
+                for (int k = 0; k < 16; ++k) {
+                    assertEquals(expected[k].getReal(), actual[k].getReal(), 0.00001);
+                    assertEquals(expected[k].getImaginary(), actual[k].getImaginary(), 0.00001);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSelectedBinsDamped() throws Exception {
+        double[] input = new double[5000];
+        for (int i = 0; i < input.length; ++i) {
+            input[i] = Math.sin(2 * Math.PI * 5 * i / 64) + 0.5;
+        }
+
+        SlidingDFT sdft = new SlidingDFT(64, new int[]{0, 5}, SlidingDFT.STABLE_DAMPING);
+        sdft.update(input, 0, input.length);
+
+        double[] re = new double[2];
+        double[] im = new double[2];
+        sdft.getSpectrum(re, im);
+        double[] mags = new double[2];
+        sdft.getSquaredMagnitudes(mags);
+
+        assertEquals(0, sdft.getBin(0));
+        assertEquals(5, sdft.getBin(1));
+        assertEquals(32, re[0], 0.1);
+        assertEquals(32, Math.sqrt(mags[1]), 0.1);
+        assertEquals(re[1] * re[1] + im[1] * im[1], mags[1], 0.000001);
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        SlidingDFT sdft = new SlidingDFT(4);
+        sdft.update(new byte[]{1, 8, 3, 2}, 0, 4);
+        sdft.reset();
+        sdft.update(new byte[]{1, 8, 3, 2}, 0, 4);
+
+        assertEquals(14, sdft.getReal(0), 0.000001);
+        assertEquals(-6, sdft.getImaginary(1), 0.000001);
+    }
+}
@@ -0,0 +1,60 @@
+package tests.com.notebook.dsp;
+
+import com.notebook.dsp.Window;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class WindowTest {
+
+    private final double doublePrecision = 0.000001;
+
+    @Test
+    public void testHann() throws Exception {
+        assertArrayEquals(new double[]{0, 0.5, 1, 0.5},
+                Window.HANN.coefficients(4), doublePrecision);
+    }
+
+    @Test
+    public void testHamming() throws Exception {
+        assertArrayEquals(new double[]{0.08, 0.54, 1, 0.54},
+                Window.HAMMING.coefficients(4), doublePrecision);
+    }
+
+    @Test
+    public void testBlackmanHarris() throws Exception {
+        double[] actual = Window.BLACKMAN_HARRIS.coefficients(8);
+        assertEquals(0.00006, actual[0], doublePrecision);
+        assertEquals(1, actual[4], doublePrecision);
+        assertEquals(actual[1], actual[7], doublePrecision);
+    }
+
+    @Test
+    public void testKaiser() throws Exception {
+        assertArrayEquals(new double[]{1, 1, 1, 1},
+                Window.kaiser(0).coefficients(4), doublePrecision);
+
+        double[] actual = Window.kaiser(8).coefficients(16);
+        assertEquals(1, actual[8], doublePrecision);
+        assertEquals(1 / 427.56411572180474, actual[0], doublePrecision);
+    }
+
+    @Test
+    public void testCached() throws Exception {
+        assertSame(Window.HANN.coefficients(32), Window.HANN.coefficients(32));
+    }
+
+    @Test
+    public void testCustom() throws Exception {
+        double[] coefficients = new double[]{1, 2, 3};
+        Window window = Window.custom(coefficients);
+        coefficients[0] = 7;
+
+        assertArrayEquals(new double[]{1, 2, 3}, window.coefficients(3), doublePrecision);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCustomOtherSize() throws Exception {
+        Window.custom(new double[]{1, 2, 3}).coefficients(4);
+    }
+}
@@ -0,0 +1,77 @@
+package tests.com.notebook.dsp;
+
+import com.notebook.dsp.BufferedFFT;
+import com.notebook.dsp.PeakInterpolator;
+import com.notebook.dsp.SpectrumType;
+import com.notebook.dsp.YinPitchEstimator;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class YinPitchEstimatorTest {
+
+    private static final double SAMPLE_RATE = 8000;
+
+    /**
+     * Tone of the fundamental with its second harmonic three times as loud
+     */
+    private static double[] harmonics(double fundamental, int length) {
+        double[] vals = new double[length];
+        for (int i = 0; i < length; ++i) {
+            double t = 2 * Math.PI * fundamental * i / SAMPLE_RATE;
+            vals[i] = 20 * Math.sin(t) + 60 * Math.sin(2 * t)
+                    + 30 * Math.sin(3 * t);
+        }
+        return vals;
+    }
+
+    @Test
+    public void testFundamentalUnderLouderHarmonic() throws Exception {
+        double[] input = harmonics(220, 1024);
+
+        // the spectrum peaks at the second harmonic
+        BufferedFFT fft = new BufferedFFT(1024);
+        double[] power = new double[513];
+        fft.calculateSpectrum(input, 1024, 0, SpectrumType.POWER, power,
+                false);
+        double peak = PeakInterpolator.quadratic(power) * SAMPLE_RATE / 1024;
+        assertEquals(440, peak, 5);
+
+        YinPitchEstimator yin = new YinPitchEstimator(SAMPLE_RATE, 1024);
+        assertEquals(220, yin.estimate(input, 0), 0.5);
+        assertTrue(yin.getAperiodicity() < 0.01);
+    }
+
+    @Test
+    public void testBytesAndMinFrequency() throws Exception {
+        double[] tone = harmonics(523.25, 700);
+        byte[] input = new byte[tone.length];
+        for (int i = 0; i < input.length; ++i) {
+            input[i] = (byte) Math.round(tone[i] + 10 * Math.sin(i * 0.37));
+        }
+
+        YinPitchEstimator yin = new YinPitchEstimator(SAMPLE_RATE, 512, 100,
+                YinPitchEstimator.DEFAULT_THRESHOLD);
+        assertEquals(523.25, yin.estimate(input, 100), 2);
+    }
+
+    @Test
+    public void testNoise() throws Exception {
+        Random random = new Random(1);
+        double[] input = new double[512];
+        for (int i = 0; i < input.length; ++i) input[i] = random.nextGaussian();
+
+        YinPitchEstimator yin = new YinPitchEstimator(SAMPLE_RATE, 512);
+        yin.estimate(input, 0);
+        assertTrue(yin.getAperiodicity() > YinPitchEstimator.DEFAULT_THRESHOLD);
+    }
+
+    @Test
+    public void testSilence() throws Exception {
+        YinPitchEstimator yin = new YinPitchEstimator(44100, 512);
+        assertEquals(0, yin.estimate(new double[512], 0), 0);
+        assertEquals(1, yin.getAperiodicity(), 0);
+    }
+}